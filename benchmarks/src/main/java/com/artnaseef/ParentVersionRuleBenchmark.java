@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package com.artnaseef;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the rule for a single module, across ignore list sizes, ignore list hits and misses, and with debug
+ * logging on and off.  Run with the gc profiler to also report the allocation rate:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar -prof gc
+ * </pre>
+ *
+ * The execute benchmarks follow the enforcer, which creates and configures a new instance of the rule for every
+ * module; executeColdCache also clears the verdict cache before each execution, so every execution validates.
+ *
+ * Every optimization of the rule should be checked against these benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParentVersionRuleBenchmark {
+
+    private static final String GROUP_ID = "com.example.generated";
+
+    /**
+     * Number of entries in the ignore list; half are artifact IDs, and half are &lt;group-id&gt;:&lt;artifact-id&gt;.
+     */
+    @Param({"0", "10", "100", "1000", "10000"})
+    public int ignoreListSize;
+
+    /**
+     * Whether the module matches the last entry of the ignore list; with an empty list the module never matches.
+     */
+    @Param({"false", "true"})
+    public boolean ignoreHit;
+
+    /**
+     * Whether debug logging is enabled.
+     */
+    @Param({"false", "true"})
+    public boolean debug;
+
+    /**
+     * Whether the project model is available, or each coordinate needs to be evaluated on its own.
+     */
+    @Param({"true", "false"})
+    public boolean projectModel;
+
+    private List<String> ignore;
+    private ParentVersionRule rule;
+    private StubEnforcerRuleHelper helper;
+    private IgnoreMatcher ignoreMatcher;
+    private ProjectCoordinates coordinates;
+
+    @Setup
+    public void setup() {
+        this.ignore = new ArrayList<>(this.ignoreListSize);
+        for (int entry = 0; entry < this.ignoreListSize; entry++) {
+            if ((entry % 2) == 0) {
+                this.ignore.add("generated-module-" + entry);
+            } else {
+                this.ignore.add(GROUP_ID + ":generated-module-" + entry);
+            }
+        }
+
+        String artifactId = "service-module";
+        if ((this.ignoreHit) && (this.ignoreListSize > 0)) {
+            artifactId = "generated-module-" + (this.ignoreListSize - 1);
+        }
+
+        this.rule = new ParentVersionRule();
+        this.rule.setIgnore(this.ignore);
+        this.ignoreMatcher = IgnoreMatcher.forSpecifications(this.ignore);
+        this.coordinates = new ProjectCoordinates(GROUP_ID, artifactId, "1.0.0", "1.0.0", "1.0.0");
+
+        this.helper = new StubEnforcerRuleHelper(new StubLog(this.debug));
+        if (this.projectModel) {
+            this.helper.setValue("${project}", createProject(artifactId));
+        } else {
+            this.helper.setValue("${project.artifact.groupId}", GROUP_ID);
+            this.helper.setValue("${project.artifact.artifactId}", artifactId);
+            this.helper.setValue("${project.version}", "1.0.0");
+            this.helper.setValue("${project.parent.version}", "1.0.0");
+            this.helper.setValue("${project.parentArtifact.version}", "1.0.0");
+        }
+    }
+
+    /**
+     * Full execution of the rule for a module, as the enforcer performs it: a new instance of the rule, configured and
+     * then executed.  Every execution after the first finds the verdict of the module in the verdict cache.
+     */
+    @Benchmark
+    public ParentVersionRule execute() throws EnforcerRuleException {
+        ParentVersionRule executionRule = new ParentVersionRule();
+        executionRule.setIgnore(this.ignore);
+        executionRule.execute(this.helper);
+        return executionRule;
+    }
+
+    /**
+     * Full execution of the rule for a module, as the enforcer performs it, with an empty verdict cache.
+     */
+    @Benchmark
+    public ParentVersionRule executeColdCache(ColdVerdictCache coldVerdictCache) throws EnforcerRuleException {
+        ParentVersionRule executionRule = new ParentVersionRule();
+        executionRule.setIgnore(this.ignore);
+        executionRule.execute(this.helper);
+        return executionRule;
+    }
+
+    /**
+     * Validation of a module from its coordinates, without the verdict cache.
+     */
+    @Benchmark
+    public Verdict validate() {
+        return this.rule.validate(this.helper.getLog(), this.coordinates);
+    }
+
+    /**
+     * Check of a module against the ignore list.
+     */
+    @Benchmark
+    public boolean checkIgnore() {
+        return this.ignoreMatcher.matches(this.coordinates.getGroupId(), this.coordinates.getArtifactId());
+    }
+
+    /**
+     * Clears the verdict cache before each invocation of the benchmarks that use it.
+     */
+    @State(Scope.Thread)
+    public static class ColdVerdictCache {
+
+        @Setup(Level.Invocation)
+        public void clear() {
+            ParentVersionRule.clearVerdictCache();
+        }
+    }
+
+    private static MavenProject createProject(String artifactId) {
+        Parent parent = new Parent();
+        parent.setGroupId(GROUP_ID);
+        parent.setArtifactId("parent");
+        parent.setVersion("1.0.0");
+
+        Model parentModel = new Model();
+        parentModel.setGroupId(GROUP_ID);
+        parentModel.setArtifactId("parent");
+        parentModel.setVersion("1.0.0");
+
+        Model model = new Model();
+        model.setGroupId(GROUP_ID);
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0.0");
+        model.setParent(parent);
+
+        MavenProject project = new MavenProject(model);
+        project.setParent(new MavenProject(parentModel));
+
+        return project;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package com.artnaseef;
+
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of validating a whole reactor, over synthetic trees written by {@link SyntheticReactor}, as the
+ * number of modules grows by factors of ten.  The score of each benchmark divided by the module count should stay
+ * roughly flat; growth with the module count marks super-linear behavior.  Run with the gc profiler to also report the
+ * allocation per operation:
+ *
+ * <pre>
+ *     java -jar target/benchmarks.jar ReactorScalingBenchmark -prof gc
+ * </pre>
+ *
+ * Everything runs offline; the trees are written to a temporary directory, and deleted after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactorScalingBenchmark {
+
+    /**
+     * Number of modules in the reactor, including the root.
+     */
+    @Param({"100", "1000", "10000"})
+    public int moduleCount;
+
+    /**
+     * Depth of the hierarchy below the root.
+     */
+    @Param({"2", "6"})
+    public int depth;
+
+    /**
+     * Number of entries in the ignore list, none of which match a module.
+     */
+    @Param({"0", "100"})
+    public int ignoreListSize;
+
+    /**
+     * Share of the leaf modules that reference a stale parent version.
+     */
+    @Param({"0.0", "0.01"})
+    public double mismatchRate;
+
+    private File directory;
+    private ForkJoinPool pool;
+    private ParentVersionRule rule;
+    private StubLog log;
+    private List<MavenProject> projects;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("synthetic-reactor").toFile();
+        SyntheticReactor.Tree tree = new SyntheticReactor(this.moduleCount, this.depth, this.ignoreListSize,
+                this.mismatchRate, 1).generate(this.directory);
+
+        this.pool = new ForkJoinPool();
+        this.rule = new ParentVersionRule();
+        this.rule.setIgnore(tree.getIgnore());
+        this.log = new StubLog(false);
+        this.projects = new PomTreeScanner(this.pool).scan(this.directory);
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        this.pool.shutdown();
+        SyntheticReactor.deleteTree(this.directory);
+    }
+
+    /**
+     * Parse of the coordinates of all the POMs in the tree.
+     */
+    @Benchmark
+    public List<MavenProject> scan() throws IOException {
+        return new PomTreeScanner(this.pool).scan(this.directory);
+    }
+
+    /**
+     * Validation of the whole reactor from the projects already read, as on the first execution of the rule with
+     * reactor validation.
+     */
+    @Benchmark
+    public ReactorValidation validate() {
+        return ReactorValidation.validate(this.rule, this.projects, this.log);
+    }
+
+    /**
+     * Parse and validation of the whole tree, as the standalone scanner performs it.
+     */
+    @Benchmark
+    public ReactorValidation scanAndValidate() throws IOException {
+        return ReactorValidation.validate(this.rule, new PomTreeScanner(this.pool).scan(this.directory), this.log);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package com.artnaseef;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enforcer rule helper that answers expressions from a fixed map, without any of the overhead of a mocking library,
+ * so benchmarks measure only the rule itself.  No components are available.
+ */
+public class StubEnforcerRuleHelper implements EnforcerRuleHelper {
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final Log log;
+
+    public StubEnforcerRuleHelper(Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Set the value returned when evaluating the given expression.
+     *
+     * @param expression expression, such as ${project.version}.
+     * @param value value of the expression.
+     */
+    public void setValue(String expression, Object value) {
+        this.values.put(expression, value);
+    }
+
+    public Object evaluate(String expression) {
+        return this.values.get(expression);
+    }
+
+    public File alignToBaseDirectory(File file) {
+        return file;
+    }
+
+    public Log getLog() {
+        return this.log;
+    }
+
+    public Object getComponent(Class clazz) throws ComponentLookupException {
+        return null;
+    }
+
+    public Object getComponent(String role) throws ComponentLookupException {
+        return null;
+    }
+
+    public Object getComponent(String role, String hint) throws ComponentLookupException {
+        return null;
+    }
+
+    public Map getComponentMap(String role) throws ComponentLookupException {
+        return null;
+    }
+
+    public List getComponentList(String role) throws ComponentLookupException {
+        return null;
+    }
+
+    public PlexusContainer getContainer() {
+        return null;
+    }
+}
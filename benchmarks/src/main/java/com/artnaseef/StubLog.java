@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Log that discards all output, with debug logging enabled or disabled as configured.  Messages are consumed by
+ * keeping their total length, so building them cannot be optimized away.
+ */
+public class StubLog implements Log {
+
+    private final boolean debugEnabled;
+    private long consumed;
+
+    public StubLog(boolean debugEnabled) {
+        this.debugEnabled = debugEnabled;
+    }
+
+    public long getConsumed() {
+        return this.consumed;
+    }
+
+    public boolean isDebugEnabled() {
+        return this.debugEnabled;
+    }
+
+    public void debug(CharSequence content) {
+        this.consumed += content.length();
+    }
+
+    public void debug(CharSequence content, Throwable error) {
+        this.consumed += content.length();
+    }
+
+    public void debug(Throwable error) {
+        this.consumed++;
+    }
+
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    public void info(CharSequence content) {
+    }
+
+    public void info(CharSequence content, Throwable error) {
+    }
+
+    public void info(Throwable error) {
+    }
+
+    public boolean isWarnEnabled() {
+        return false;
+    }
+
+    public void warn(CharSequence content) {
+    }
+
+    public void warn(CharSequence content, Throwable error) {
+    }
+
+    public void warn(Throwable error) {
+    }
+
+    public boolean isErrorEnabled() {
+        return false;
+    }
+
+    public void error(CharSequence content) {
+    }
+
+    public void error(CharSequence content, Throwable error) {
+    }
+
+    public void error(Throwable error) {
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of synthetic multi-module trees, for tests and benchmarks of the rule at scale.  The modules form a tree
+ * of the configured depth below a root POM, each module nested in the directory of its parent, with the aggregators
+ * listing their modules.  Every module inherits its version from its parent; the configured share of the leaf modules
+ * instead reference a stale version of their parent, so exactly those modules fail validation.  Generation is
+ * deterministic for a given seed.
+ */
+public class SyntheticReactor {
+
+    public static final String GROUP_ID = "com.example.synthetic";
+    public static final String VERSION = "1.0.0";
+    public static final String STALE_VERSION = "0.9.0";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int moduleCount;
+    private final int depth;
+    private final int ignoreListSize;
+    private final double mismatchRate;
+    private final long seed;
+
+    /**
+     * Generated tree.
+     */
+    public static class Tree {
+
+        private final File directory;
+        private final int moduleCount;
+        private final int depth;
+        private final List<String> ignore;
+        private final Set<String> mismatched;
+
+        public Tree(File directory, int moduleCount, int depth, List<String> ignore, Set<String> mismatched) {
+            this.directory = directory;
+            this.moduleCount = moduleCount;
+            this.depth = depth;
+            this.ignore = ignore;
+            this.mismatched = mismatched;
+        }
+
+        public File getDirectory() {
+            return directory;
+        }
+
+        public int getModuleCount() {
+            return moduleCount;
+        }
+
+        /**
+         * Return the depth of the deepest module below the root.
+         *
+         * @return the depth.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Return the ignore list; none of its entries match a module in the tree.
+         *
+         * @return the ignore list.
+         */
+        public List<String> getIgnore() {
+            return ignore;
+        }
+
+        /**
+         * Return the &lt;group-id&gt;:&lt;artifact-id&gt; of the modules that reference a stale parent version.
+         *
+         * @return the keys of the mismatched modules.
+         */
+        public Set<String> getMismatched() {
+            return mismatched;
+        }
+    }
+
+    /**
+     * Create the generator.
+     *
+     * @param moduleCount number of modules, including the root.
+     * @param depth depth of the hierarchy below the root; at least 1.
+     * @param ignoreListSize number of entries in the ignore list.
+     * @param mismatchRate share of the leaf modules that reference a stale parent version.
+     * @param seed seed from which the mismatched modules are chosen.
+     */
+    public SyntheticReactor(int moduleCount, int depth, int ignoreListSize, double mismatchRate, long seed) {
+        this.moduleCount = moduleCount;
+        this.depth = depth;
+        this.ignoreListSize = ignoreListSize;
+        this.mismatchRate = mismatchRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Write the tree to the given directory.
+     *
+     * @param directory directory in which to write the root POM.
+     * @return the generated tree.
+     * @throws IOException when a POM cannot be written.
+     */
+    public Tree generate(File directory) throws IOException {
+        //
+        // Lay the modules out as a complete tree, with the smallest fan-out that keeps it within the depth, so
+        //  module i is a child of module (i - 1) / fanOut.
+        //
+        int fanOut = 2;
+        while (Math.pow(fanOut, this.depth + 1) < (this.moduleCount * (double) (fanOut - 1)) + 1) {
+            fanOut++;
+        }
+
+        Random random = new Random(this.seed);
+        File[] directories = new File[this.moduleCount];
+        int[] levels = new int[this.moduleCount];
+        Set<String> mismatched = new LinkedHashSet<>();
+        int maxLevel = 0;
+
+        directories[0] = directory;
+        for (int module = 1; module < this.moduleCount; module++) {
+            int parent = (module - 1) / fanOut;
+            directories[module] = new File(directories[parent], artifactId(module));
+            levels[module] = levels[parent] + 1;
+            maxLevel = Math.max(maxLevel, levels[module]);
+        }
+
+        for (int module = 0; module < this.moduleCount; module++) {
+            int firstChild = (module * fanOut) + 1;
+            int lastChild = Math.min(firstChild + fanOut, this.moduleCount);
+
+            String parentVersion = null;
+            if (module > 0) {
+                parentVersion = VERSION;
+                if ((firstChild >= lastChild) && (random.nextDouble() < this.mismatchRate)) {
+                    parentVersion = STALE_VERSION;
+                    mismatched.add(GROUP_ID + ":" + artifactId(module));
+                }
+            }
+
+            this.writePom(directories[module], module, (module - 1) / fanOut, parentVersion, firstChild, lastChild);
+        }
+
+        List<String> ignore = new ArrayList<>(this.ignoreListSize);
+        for (int entry = 0; entry < this.ignoreListSize; entry++) {
+            if ((entry % 2) == 0) {
+                ignore.add("ignored-module-" + entry);
+            } else {
+                ignore.add(GROUP_ID + ":ignored-module-" + entry);
+            }
+        }
+
+        return new Tree(directory, this.moduleCount, maxLevel, Collections.unmodifiableList(ignore),
+                Collections.unmodifiableSet(mismatched));
+    }
+
+    /**
+     * Delete the given directory and everything under it.
+     *
+     * @param directory the directory.
+     * @throws IOException when a file cannot be deleted.
+     */
+    public static void deleteTree(File directory) throws IOException {
+        Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void writePom(File directory, int module, int parent, String parentVersion, int firstChild,
+                          int lastChild) throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        content.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        content.append("    <modelVersion>4.0.0</modelVersion>\n");
+
+        if (parentVersion != null) {
+            content.append("    <parent>\n");
+            content.append("        <groupId>").append(GROUP_ID).append("</groupId>\n");
+            content.append("        <artifactId>").append(artifactId(parent)).append("</artifactId>\n");
+            content.append("        <version>").append(parentVersion).append("</version>\n");
+            content.append("    </parent>\n");
+        } else {
+            content.append("    <groupId>").append(GROUP_ID).append("</groupId>\n");
+        }
+
+        content.append("    <artifactId>").append(artifactId(module)).append("</artifactId>\n");
+        if (parentVersion == null) {
+            content.append("    <version>").append(VERSION).append("</version>\n");
+        }
+
+        if (firstChild < lastChild) {
+            content.append("    <packaging>pom</packaging>\n");
+            content.append("    <modules>\n");
+            for (int child = firstChild; child < lastChild; child++) {
+                content.append("        <module>").append(artifactId(child)).append("</module>\n");
+            }
+            content.append("    </modules>\n");
+        }
+
+        content.append("    <dependencies>\n");
+        content.append("        <dependency>\n");
+        content.append("            <groupId>org.example</groupId>\n");
+        content.append("            <artifactId>library</artifactId>\n");
+        content.append("            <version>2.0.0</version>\n");
+        content.append("        </dependency>\n");
+        content.append("    </dependencies>\n");
+        content.append("</project>\n");
+
+        Files.createDirectories(directory.toPath());
+        Files.write(new File(directory, PomTreeScanner.POM_FILE_NAME).toPath(), content.toString().getBytes(UTF_8));
+    }
+
+    private static String artifactId(int module) {
+        if (module == 0) {
+            return "root";
+        }
+
+        return "module-" + module;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the SyntheticReactor, and the scaling of reactor validation over the trees it generates.
+ */
+public class SyntheticReactorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private Log mockLog;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.pool = new ForkJoinPool(2);
+        this.mockLog = Mockito.mock(Log.class);
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Verify the generated tree has the requested size and depth, and validation of it fails exactly the modules with
+     * an injected mismatch.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGenerate() throws Exception {
+        File directory = this.temporaryFolder.newFolder("x-tree-x");
+        SyntheticReactor.Tree tree = new SyntheticReactor(200, 3, 10, 0.1, 7).generate(directory);
+
+        assertEquals(200, tree.getModuleCount());
+        assertEquals(3, tree.getDepth());
+        assertEquals(10, tree.getIgnore().size());
+        assertFalse(tree.getMismatched().isEmpty());
+
+        List<MavenProject> projects = new PomTreeScanner(this.pool).scan(directory);
+        assertEquals(200, projects.size());
+
+        ParentVersionRule rule = new ParentVersionRule();
+        rule.setIgnore(tree.getIgnore());
+        Map<String, Verdict> failures = ReactorValidation.validate(rule, projects, this.mockLog).getFailedVerdicts();
+
+        assertEquals(tree.getMismatched(), failures.keySet());
+    }
+
+    /**
+     * Verify generation is deterministic for a seed, and a tree without mismatches passes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGenerateSeedAndNoMismatch() throws Exception {
+        Set<String> first = new SyntheticReactor(100, 2, 0, 0.2, 11).generate(this.temporaryFolder.newFolder("x-a-x"))
+                .getMismatched();
+        Set<String> second = new SyntheticReactor(100, 2, 0, 0.2, 11).generate(this.temporaryFolder.newFolder("x-b-x"))
+                .getMismatched();
+        assertEquals(first, second);
+
+        File directory = this.temporaryFolder.newFolder("x-clean-x");
+        SyntheticReactor.Tree tree = new SyntheticReactor(100, 2, 0, 0.0, 11).generate(directory);
+        assertTrue(tree.getMismatched().isEmpty());
+        assertEquals(0, PomTreeScanner.run(new String[]{directory.getPath()}, this.mockLog));
+
+        SyntheticReactor.deleteTree(directory);
+        assertFalse(directory.exists());
+    }
+
+    /**
+     * Verify the memory allocated by reactor validation grows linearly with the number of modules, by comparing the
+     * allocation per module for trees ten times apart in size, using the allocation counter of the current thread.
+     * Skipped on JVMs without thread allocation accounting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidationAllocationScalesLinearly() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        double smallPerModule = this.measureValidationAllocation(allocationCounter, 300) / 300.0;
+        double largePerModule = this.measureValidationAllocation(allocationCounter, 3000) / 3000.0;
+
+        assertTrue("allocated " + smallPerModule + " bytes per module for 300 modules, and " + largePerModule +
+                " for 3000", largePerModule < smallPerModule * 2);
+    }
+
+    private long measureValidationAllocation(com.sun.management.ThreadMXBean allocationCounter, int moduleCount)
+            throws Exception {
+
+        File directory = this.temporaryFolder.newFolder("x-scale-" + moduleCount + "-x");
+        SyntheticReactor.Tree tree = new SyntheticReactor(moduleCount, 4, 100, 0.01, 3).generate(directory);
+        List<MavenProject> projects = new PomTreeScanner(this.pool).scan(directory);
+
+        ParentVersionRule rule = new ParentVersionRule();
+        rule.setIgnore(tree.getIgnore());
+
+        // Warm up, so class loading and the compiled ignore list are not counted.
+        ReactorValidation.validate(rule, projects, this.mockLog);
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        ReactorValidation validation = ReactorValidation.validate(rule, projects, this.mockLog);
+        long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(tree.getMismatched(), validation.getFailedVerdicts().keySet());
+
+        return allocated;
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache bounded by the approximate memory used by its entries, evicting the least recently used entries
+ * once the bound is reached.  The caches of the rule live as long as the JVM, which under the Maven daemon or an
+ * embedded Maven means across many builds, so every one of them is bounded to keep the heap predictable.
+ *
+ * Entries are spread across independently locked segments, each holding an equal share of the bound and evicting on
+ * its own, so executions of the rule on modules built in parallel rarely contend.  Eviction order is therefore only
+ * least recently used within each segment.
+ *
+ * The total bound of all the caches is set by the system property parentVersionRule.cacheMaxBytes, in bytes, and
+ * defaults to 32 MiB.
+ */
+public class BoundedCache<K, V> {
+
+    public static final String MAX_BYTES_PROPERTY = "parentVersionRule.cacheMaxBytes";
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Approximate overhead, in bytes, of an entry in the cache, not counting its key and value.
+     */
+    public static final long ENTRY_OVERHEAD = 64;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * Estimate of the memory used by an entry of the cache.
+     */
+    public interface Weigher<K, V> {
+        /**
+         * Estimate the memory used by the given key and value, in bytes, not counting the overhead of the entry.
+         *
+         * @param key the key.
+         * @param value the value.
+         * @return the estimated size, in bytes.
+         */
+        long weigh(K key, V value);
+    }
+
+    private final List<Segment<K, V>> segments;
+    private final Weigher<K, V> weigher;
+
+    /**
+     * Create a cache bounded to the given share of the total bound of all the caches.
+     *
+     * @param budgetShare fraction of the total bound given to this cache, between 0 and 1.
+     * @param weigher estimate of the memory used by each entry.
+     */
+    public BoundedCache(double budgetShare, Weigher<K, V> weigher) {
+        this((long) (getTotalMaxBytes() * budgetShare), SEGMENT_COUNT, weigher);
+    }
+
+    /**
+     * Create a cache with the given bound.
+     *
+     * @param maxWeight bound of the cache, in bytes, split evenly across the segments.
+     * @param segmentCount number of segments; a power of two.
+     * @param weigher estimate of the memory used by each entry.
+     */
+    BoundedCache(long maxWeight, int segmentCount, Weigher<K, V> weigher) {
+        this.weigher = weigher;
+
+        this.segments = new ArrayList<>(segmentCount);
+        for (int index = 0; index < segmentCount; index++) {
+            this.segments.add(new Segment<K, V>(maxWeight / segmentCount));
+        }
+    }
+
+    /**
+     * Return the total bound of all the caches, in bytes, from the system property, or the default if the property is
+     * not set or not a number.
+     *
+     * @return the total bound, in bytes.
+     */
+    public static long getTotalMaxBytes() {
+        String value = System.getProperty(MAX_BYTES_PROPERTY);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException numberFormatExc) {
+                return DEFAULT_MAX_BYTES;
+            }
+        }
+
+        return DEFAULT_MAX_BYTES;
+    }
+
+    /**
+     * Estimate the memory used by the given string, in bytes.
+     *
+     * @param value the string; may be null.
+     * @return the estimated size, in bytes.
+     */
+    public static long weighString(String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        return 40 + (2L * value.length());
+    }
+
+    /**
+     * Return the value cached for the given key, marking it as recently used.
+     *
+     * @param key the key.
+     * @return the cached value, or null if none is cached.
+     */
+    public V get(K key) {
+        return this.segmentFor(key).get(key);
+    }
+
+    /**
+     * Cache the given value, unless a value is already cached for the key.  Values too large for the cache are not
+     * cached.
+     *
+     * @param key the key.
+     * @param value the value to cache.
+     * @return the value already cached for the key, or null if the given value was cached.
+     */
+    public V putIfAbsent(K key, V value) {
+        return this.segmentFor(key).putIfAbsent(key, value, ENTRY_OVERHEAD + this.weigher.weigh(key, value));
+    }
+
+    /**
+     * Remove the value cached for the given key, if any.
+     *
+     * @param key the key.
+     */
+    public void remove(K key) {
+        this.segmentFor(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int result = 0;
+        for (Segment<K, V> segment : this.segments) {
+            result += segment.size();
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the estimated memory used by the entries of the cache.
+     *
+     * @return the estimated size, in bytes.
+     */
+    public long getWeight() {
+        long result = 0;
+        for (Segment<K, V> segment : this.segments) {
+            result += segment.getWeight();
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the bound of the cache.
+     *
+     * @return the bound, in bytes.
+     */
+    public long getMaxWeight() {
+        return this.segments.get(0).maxWeight * this.segments.size();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+
+        return this.segments.get(hash & (this.segments.size() - 1));
+    }
+
+    /**
+     * Independently locked portion of the cache, evicting its least recently used entries.
+     */
+    private static class Segment<K, V> {
+
+        private final long maxWeight;
+        private final LinkedHashMap<K, WeightedValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long weight;
+
+        public Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public synchronized V get(K key) {
+            WeightedValue<V> entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            return entry.value;
+        }
+
+        public synchronized V putIfAbsent(K key, V value, long entryWeight) {
+            WeightedValue<V> existing = this.entries.get(key);
+            if (existing != null) {
+                return existing.value;
+            }
+
+            if (entryWeight > this.maxWeight) {
+                return null;
+            }
+
+            this.entries.put(key, new WeightedValue<>(value, entryWeight));
+            this.weight += entryWeight;
+
+
+            //
+            // Evict the least recently used entries until the segment is back within its bound.
+            //
+            Iterator<Map.Entry<K, WeightedValue<V>>> iterator = this.entries.entrySet().iterator();
+            while (this.weight > this.maxWeight) {
+                Map.Entry<K, WeightedValue<V>> eldest = iterator.next();
+                this.weight -= eldest.getValue().weight;
+                iterator.remove();
+            }
+
+            return null;
+        }
+
+        public synchronized void remove(K key) {
+            WeightedValue<V> removed = this.entries.remove(key);
+            if (removed != null) {
+                this.weight -= removed.weight;
+            }
+        }
+
+        public synchronized void clear() {
+            this.entries.clear();
+            this.weight = 0;
+        }
+
+        public synchronized int size() {
+            return this.entries.size();
+        }
+
+        public synchronized long getWeight() {
+            return this.weight;
+        }
+    }
+
+    private static class WeightedValue<V> {
+
+        private final V value;
+        private final long weight;
+
+        public WeightedValue(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
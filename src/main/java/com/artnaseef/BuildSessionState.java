@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.execution.MavenSession;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * State shared by all executions of the rule within a single Maven session (i.e. one build of a reactor).  The
+ * enforcer creates a new rule instance for every module, so anything computed once per build lives here.
+ *
+ * State is keyed by the execution request of the session, rather than the session itself, since parallel builds hand
+ * each module thread a clone of the session that shares the original request.  Keys are held weakly, so the state of
+ * a finished build is released along with its session.
+ *
+ * Work that has to wait for the whole build, such as finishing a report, runs once every project in the reactor has
+ * executed the rule, as counted by a {@link ReactorCountdown}; the rule cannot observe the end of the session itself.
+ */
+public class BuildSessionState {
+
+    private static final Map<Object, BuildSessionState> sessionStates =
+            Collections.synchronizedMap(new WeakHashMap<Object, BuildSessionState>());
+
+    /**
+     * Reactor validations, keyed by the configuration cache id of the rules that requested them.
+     */
+    private final ConcurrentMap<String, ReactorValidation> reactorValidations = new ConcurrentHashMap<>();
+
+    /**
+     * Violation collectors, keyed by the configuration cache id of the rules that use them.
+     */
+    private final ConcurrentMap<String, ViolationCollector> violationCollectors = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics of all the executions of the rule in the session.
+     */
+    private final RuleMetrics metrics = new RuleMetrics();
+
+    /**
+     * Changed modules, keyed by the source of the changed files.
+     */
+    private final ConcurrentMap<String, ChangedModules> changedModules = new ConcurrentHashMap<>();
+
+    /**
+     * Verdict reports, keyed by the absolute path of the report file.
+     */
+    private final ConcurrentMap<String, VerdictReport> verdictReports = new ConcurrentHashMap<>();
+
+    /**
+     * Countdowns over the projects of the reactor, keyed by their purpose.
+     */
+    private final ConcurrentMap<String, ReactorCountdown> countdowns = new ConcurrentHashMap<>();
+
+    /**
+     * Resolver of CI-friendly version placeholders for the session; created on first use.
+     */
+    private CiFriendlyVersions ciFriendlyVersions;
+
+    /**
+     * Return the state for the given session, creating it on first use.
+     *
+     * @param session the maven session.
+     * @return state shared by all executions of the rule in the session.
+     */
+    public static BuildSessionState get(MavenSession session) {
+        Object key = session.getRequest();
+        if (key == null) {
+            key = session;
+        }
+
+        synchronized (sessionStates) {
+            BuildSessionState result = sessionStates.get(key);
+            if (result == null) {
+                result = new BuildSessionState();
+                sessionStates.put(key, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Return the reactor validation for the given rule configuration, if one was already performed.
+     *
+     * @param configurationId configuration cache id of the rule.
+     * @return the reactor validation, or null if none exists yet.
+     */
+    public ReactorValidation getReactorValidation(String configurationId) {
+        return this.reactorValidations.get(configurationId);
+    }
+
+    /**
+     * Record the reactor validation for the given rule configuration, unless another one was recorded first.
+     *
+     * @param configurationId configuration cache id of the rule.
+     * @param reactorValidation the validation to record.
+     * @return the reactor validation in effect for the configuration.
+     */
+    public ReactorValidation putReactorValidation(String configurationId, ReactorValidation reactorValidation) {
+        ReactorValidation existing = this.reactorValidations.putIfAbsent(configurationId, reactorValidation);
+        if (existing != null) {
+            return existing;
+        }
+
+        return reactorValidation;
+    }
+
+    /**
+     * Return the changed modules read from the given source, if they were already read.
+     *
+     * @param source description of the source of the changed files.
+     * @return the changed modules, or null if not read yet.
+     */
+    public ChangedModules getChangedModules(String source) {
+        return this.changedModules.get(source);
+    }
+
+    /**
+     * Record the changed modules read from the given source, unless others were recorded first.
+     *
+     * @param source description of the source of the changed files.
+     * @param changedModules the changed modules to record.
+     * @return the changed modules in effect for the source.
+     */
+    public ChangedModules putChangedModules(String source, ChangedModules changedModules) {
+        ChangedModules existing = this.changedModules.putIfAbsent(source, changedModules);
+        if (existing != null) {
+            return existing;
+        }
+
+        return changedModules;
+    }
+
+    public RuleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Return the resolver of CI-friendly version placeholders for the given session, creating it on first use.
+     *
+     * @param session the maven session this state belongs to.
+     * @return the resolver.
+     */
+    public synchronized CiFriendlyVersions getCiFriendlyVersions(MavenSession session) {
+        if (this.ciFriendlyVersions == null) {
+            this.ciFriendlyVersions = CiFriendlyVersions.forSession(session);
+        }
+
+        return this.ciFriendlyVersions;
+    }
+
+    /**
+     * Return the violation collector for the given rule configuration, creating it on first use.
+     *
+     * @param configurationId configuration cache id of the rule.
+     * @return the violation collector shared by all executions of the rule with the configuration.
+     */
+    public ViolationCollector getViolationCollector(String configurationId) {
+        ViolationCollector result = this.violationCollectors.get(configurationId);
+        if (result == null) {
+            ViolationCollector created = new ViolationCollector();
+            result = this.violationCollectors.putIfAbsent(configurationId, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the verdict report written to the given file, creating it on first use.  The format of the first request
+     * for the file applies.
+     *
+     * @param file the report file.
+     * @param format format of the report.
+     * @return the report shared by all executions of the rule writing to the file.
+     */
+    public VerdictReport getVerdictReport(File file, VerdictReport.Format format) {
+        String key = file.getAbsolutePath();
+
+        VerdictReport result = this.verdictReports.get(key);
+        if (result == null) {
+            VerdictReport created = new VerdictReport(file, format);
+            result = this.verdictReports.putIfAbsent(key, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the countdown over the projects of the reactor of the given session for the given purpose, creating it
+     * on first use.
+     *
+     * @param key purpose of the countdown.
+     * @param session the maven session this state belongs to.
+     * @return the countdown shared by all executions of the rule counting for the purpose.
+     */
+    public ReactorCountdown getCountdown(String key, MavenSession session) {
+        ReactorCountdown result = this.countdowns.get(key);
+        if (result == null) {
+            ReactorCountdown created = new ReactorCountdown(session.getSortedProjects());
+            result = this.countdowns.putIfAbsent(key, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+
+        return result;
+    }
+}
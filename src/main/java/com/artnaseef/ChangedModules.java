@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.project.MavenProject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Files changed in the working tree, used to limit validation to the modules whose POM, or the POM of an ancestor,
+ * changed.  The changed files are read once per build, either from a list of files or from git, and held as canonical
+ * paths, so checking a module is just a set lookup for each POM in its ancestry.
+ */
+public class ChangedModules {
+
+    /**
+     * Changed modules for when the changed files are not known; every module counts as changed.
+     */
+    public static final ChangedModules ALL = new ChangedModules(null);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Set<String> changedFiles;
+
+    private ChangedModules(Set<String> changedFiles) {
+        this.changedFiles = changedFiles;
+    }
+
+    /**
+     * Read the changed files from the given list, which holds one path per line.  Blank lines are skipped, and
+     * relative paths are resolved against the given base directory.
+     *
+     * @param listFile the file holding the list of changed files.
+     * @param baseDirectory directory against which to resolve relative paths.
+     * @return the changed modules.
+     * @throws IOException when the list cannot be read.
+     */
+    public static ChangedModules fromFileList(File listFile, File baseDirectory) throws IOException {
+        return fromPaths(Files.readAllLines(listFile.toPath(), UTF_8), baseDirectory);
+    }
+
+    /**
+     * Determine the changed files using git: the files changed in the working tree since the point at which it
+     * diverged from the given ref, including uncommitted changes and untracked files.
+     *
+     * @param workingDirectory directory within the git working tree.
+     * @param baseRef ref against which to compare, such as origin/master.
+     * @return the changed modules.
+     * @throws IOException when git fails or cannot be run.
+     */
+    public static ChangedModules fromGit(File workingDirectory, String baseRef) throws IOException {
+        List<String> topLevel = runGit(workingDirectory, "rev-parse", "--show-toplevel");
+        List<String> mergeBase = runGit(workingDirectory, "merge-base", baseRef, "HEAD");
+        if ((topLevel.size() != 1) || (mergeBase.size() != 1)) {
+            throw new IOException("unexpected output from git in " + workingDirectory + ": " + topLevel + " " +
+                    mergeBase);
+        }
+
+        List<String> paths = new ArrayList<>();
+        paths.addAll(runGit(workingDirectory, "diff", "--name-only", mergeBase.get(0)));
+        paths.addAll(runGit(workingDirectory, "ls-files", "--others", "--exclude-standard", "--full-name"));
+
+        return fromPaths(paths, new File(topLevel.get(0)));
+    }
+
+    /**
+     * Create the changed modules from the given paths of changed files.
+     *
+     * @param paths paths of the changed files; blank entries are skipped.
+     * @param baseDirectory directory against which to resolve relative paths.
+     * @return the changed modules.
+     * @throws IOException when a path cannot be resolved.
+     */
+    static ChangedModules fromPaths(List<String> paths, File baseDirectory) throws IOException {
+        Set<String> changedFiles = new HashSet<>();
+        for (String path : paths) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            File file = new File(trimmed);
+            if (!file.isAbsolute()) {
+                file = new File(baseDirectory, trimmed);
+            }
+
+            changedFiles.add(file.getCanonicalPath());
+        }
+
+        return new ChangedModules(Collections.unmodifiableSet(changedFiles));
+    }
+
+    /**
+     * Determine whether the POM of the given project, or of any of its ancestors, changed.
+     *
+     * @param project the project.
+     * @return true => the project needs to be validated; false => neither its POM nor any ancestor POM changed.
+     * @throws IOException when the path of a POM cannot be resolved.
+     */
+    public boolean isChanged(MavenProject project) throws IOException {
+        if (this.changedFiles == null) {
+            return true;
+        }
+
+        MavenProject current = project;
+        while (current != null) {
+            File pomFile = current.getFile();
+            if ((pomFile == null) || (this.changedFiles.contains(pomFile.getCanonicalPath()))) {
+                return true;
+            }
+
+            current = current.getParent();
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the number of changed files; -1 when the changed files are not known.
+     *
+     * @return the number of changed files.
+     */
+    public int size() {
+        if (this.changedFiles == null) {
+            return -1;
+        }
+
+        return this.changedFiles.size();
+    }
+
+    /**
+     * Run git with the given arguments, and return the lines of its output.
+     */
+    private static List<String> runGit(File workingDirectory, String... args) throws IOException {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).directory(workingDirectory).redirectErrorStream(true).start();
+
+        List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                result.add(line);
+                line = reader.readLine();
+            }
+        }
+
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException interruptedExc) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("interrupted waiting for git in " + workingDirectory, interruptedExc);
+        }
+
+        if (exitCode != 0) {
+            throw new IOException("git " + args[0] + " failed with exit code " + exitCode + " in " + workingDirectory +
+                    ": " + result);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolution of the CI-friendly version placeholders, ${revision}, ${sha1} and ${changelist}, which can remain in
+ * versions read from a project, or its parent, depending on the Maven version and where the rule executes.  The values
+ * of the placeholders are determined once, from the properties of the build, and each distinct version is only
+ * resolved once; versions without placeholders are returned as-is, without any lookup.
+ */
+public class CiFriendlyVersions {
+
+    public static final String[] PROPERTY_NAMES = {"revision", "sha1", "changelist"};
+
+    /**
+     * Resolver without any values, which leaves all placeholders in place.
+     */
+    public static final CiFriendlyVersions NONE = new CiFriendlyVersions(Collections.<String, String>emptyMap());
+
+    private final Map<String, String> values;
+    private final ConcurrentMap<String, String> resolvedVersions = new ConcurrentHashMap<>();
+
+    private CiFriendlyVersions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Create the resolver for the given properties.  Later properties take precedence over earlier ones.
+     *
+     * @param sources the properties; null entries are skipped.
+     * @return the resolver.
+     */
+    public static CiFriendlyVersions fromProperties(Properties... sources) {
+        Map<String, String> values = new HashMap<>();
+        for (Properties source : sources) {
+            if (source == null) {
+                continue;
+            }
+
+            for (String name : PROPERTY_NAMES) {
+                String value = source.getProperty(name);
+                if (value != null) {
+                    values.put(name, value);
+                }
+            }
+        }
+
+        return new CiFriendlyVersions(Collections.unmodifiableMap(values));
+    }
+
+    /**
+     * Create the resolver for the given session, from the system properties, the properties of the top-level project,
+     * and the user properties, in increasing order of precedence.
+     *
+     * @param session the maven session.
+     * @return the resolver.
+     */
+    public static CiFriendlyVersions forSession(MavenSession session) {
+        Properties projectProperties = null;
+
+        MavenProject topLevelProject = session.getTopLevelProject();
+        if ((topLevelProject != null) && (topLevelProject.getModel() != null)) {
+            projectProperties = topLevelProject.getModel().getProperties();
+        }
+
+        return fromProperties(session.getSystemProperties(), projectProperties, session.getUserProperties());
+    }
+
+    /**
+     * Determine whether the given version contains a placeholder.
+     *
+     * @param version the version; may be null.
+     * @return true => the version contains a placeholder; false => it does not.
+     */
+    public static boolean hasPlaceholder(String version) {
+        return (version != null) && (version.contains("${"));
+    }
+
+    /**
+     * Resolve the CI-friendly placeholders in the given version.  Placeholders without a value, and any other
+     * placeholders, are left in place.
+     *
+     * @param version the version; may be null.
+     * @return the resolved version.
+     */
+    public String resolve(String version) {
+        if (!hasPlaceholder(version)) {
+            return version;
+        }
+
+        String result = this.resolvedVersions.get(version);
+        if (result == null) {
+            result = version;
+            for (Map.Entry<String, String> value : this.values.entrySet()) {
+                result = result.replace("${" + value.getKey() + "}", value.getValue());
+            }
+
+            this.resolvedVersions.putIfAbsent(version, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolve the placeholders in all of the versions of the given coordinates.
+     *
+     * @param coordinates the coordinates.
+     * @return the coordinates with resolved versions; the given coordinates if none of the versions has a placeholder.
+     */
+    public ProjectCoordinates resolve(ProjectCoordinates coordinates) {
+        if ((!hasPlaceholder(coordinates.getVersion())) && (!hasPlaceholder(coordinates.getParentVersion())) &&
+                (!hasPlaceholder(coordinates.getParentArtifactVersion()))) {
+            return coordinates;
+        }
+
+        return new ProjectCoordinates(coordinates.getGroupId(), coordinates.getArtifactId(),
+                this.resolve(coordinates.getVersion()), this.resolve(coordinates.getParentVersion()),
+                this.resolve(coordinates.getParentArtifactVersion()));
+    }
+}
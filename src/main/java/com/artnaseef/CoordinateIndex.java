@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact index of the modules in a reactor, for reactors of many thousands of modules.  Group ids, artifact ids and
+ * versions are interned in a symbol table, each module is identified by its ordinal, and the coordinates, parent link
+ * and verdict status of the modules are held in primitive arrays; lookups use open addressing over int arrays, so no
+ * entry objects are allocated per module.  Only the reasons of failed verdicts, which are rare, are kept in a map.
+ *
+ * Strings are interned by reference, so the index adds no copies of the strings it is given.  Not thread-safe while
+ * being built; safe to share once built.
+ */
+public class CoordinateIndex {
+
+    public static final int NONE = -1;
+
+    private static final Verdict.Status[] STATUSES = Verdict.Status.values();
+
+    private static final int MIN_CAPACITY = 16;
+
+    //
+    // Symbol table: the interned strings, and an open-addressing table of symbol id + 1 (0 for an empty slot).
+    //
+    private String[] symbols;
+    private int[] symbolSlots;
+    private int symbolCount;
+
+
+    //
+    // Modules, by ordinal, and an open-addressing table of ordinal + 1 keyed by group and artifact id.
+    //
+    private int[] groupIds;
+    private int[] artifactIds;
+    private int[] versions;
+    private int[] parents;
+    private byte[] statuses;
+    private int[] moduleSlots;
+    private int moduleCount;
+
+    /**
+     * Failed verdicts by ordinal.
+     */
+    private final Map<Integer, Verdict> failedVerdicts = new HashMap<>();
+
+    /**
+     * Create an index sized for the given number of modules, so it is built without growing.
+     *
+     * @param expectedModules number of modules expected.
+     */
+    public CoordinateIndex(int expectedModules) {
+        int capacity = Math.max(MIN_CAPACITY, expectedModules);
+
+        //
+        // Artifact ids are mostly distinct, while group ids and versions are mostly shared, so expect somewhat more
+        //  symbols than modules.
+        //
+        int symbolCapacity = capacity + (capacity / 2);
+        this.symbols = new String[symbolCapacity];
+        this.symbolSlots = new int[tableSize(symbolCapacity)];
+
+        this.groupIds = new int[capacity];
+        this.artifactIds = new int[capacity];
+        this.versions = new int[capacity];
+        this.parents = new int[capacity];
+        this.statuses = new byte[capacity];
+        this.moduleSlots = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Add the module with the given coordinates, unless a module with the same group and artifact id was already
+     * added, in which case the index is left unchanged.
+     *
+     * @param groupId group id of the module.
+     * @param artifactId artifact id of the module.
+     * @param version version of the module; may be null.
+     * @return the ordinal of the module, or NONE if a module with the same group and artifact id is already in the
+     * index.
+     */
+    public int add(String groupId, String artifactId, String version) {
+        int groupSymbol = this.intern(groupId);
+        int artifactSymbol = this.intern(artifactId);
+        int versionSymbol = this.intern(version);
+
+        int slot = this.findModuleSlot(groupSymbol, artifactSymbol);
+        if (this.moduleSlots[slot] != 0) {
+            return NONE;
+        }
+
+        if (this.moduleCount == this.groupIds.length) {
+            this.growModules();
+            slot = this.findModuleSlot(groupSymbol, artifactSymbol);
+        }
+
+        int ordinal = this.moduleCount++;
+        this.groupIds[ordinal] = groupSymbol;
+        this.artifactIds[ordinal] = artifactSymbol;
+        this.versions[ordinal] = versionSymbol;
+        this.parents[ordinal] = NONE;
+        this.statuses[ordinal] = (byte) Verdict.Status.PASSED.ordinal();
+        this.moduleSlots[slot] = ordinal + 1;
+
+        return ordinal;
+    }
+
+    /**
+     * Find the module with the given group and artifact id.
+     *
+     * @param groupId group id of the module.
+     * @param artifactId artifact id of the module.
+     * @return the ordinal of the module, or NONE if it is not in the index.
+     */
+    public int find(String groupId, String artifactId) {
+        int groupSymbol = this.findSymbol(groupId);
+        int artifactSymbol = this.findSymbol(artifactId);
+        if ((groupSymbol == NONE) || (artifactSymbol == NONE)) {
+            return NONE;
+        }
+
+        return this.moduleSlots[this.findModuleSlot(groupSymbol, artifactSymbol)] - 1;
+    }
+
+    public String getGroupId(int ordinal) {
+        return this.symbol(this.groupIds[ordinal]);
+    }
+
+    public String getArtifactId(int ordinal) {
+        return this.symbol(this.artifactIds[ordinal]);
+    }
+
+    public String getVersion(int ordinal) {
+        return this.symbol(this.versions[ordinal]);
+    }
+
+    /**
+     * Return the &lt;group-id&gt;:&lt;artifact-id&gt; of the given module; built on each call.
+     *
+     * @param ordinal ordinal of the module.
+     * @return the key of the module.
+     */
+    public String getKey(int ordinal) {
+        return this.getGroupId(ordinal) + ":" + this.getArtifactId(ordinal);
+    }
+
+    public int getParent(int ordinal) {
+        return this.parents[ordinal];
+    }
+
+    public void setParent(int ordinal, int parentOrdinal) {
+        this.parents[ordinal] = parentOrdinal;
+    }
+
+    /**
+     * Return the verdict of the given module; PASSED until one is set.
+     *
+     * @param ordinal ordinal of the module.
+     * @return the verdict.
+     */
+    public Verdict getVerdict(int ordinal) {
+        Verdict.Status status = STATUSES[this.statuses[ordinal]];
+        if (status == Verdict.Status.FAILED) {
+            return this.failedVerdicts.get(ordinal);
+        }
+
+        return Verdict.forStatus(status, null);
+    }
+
+    public void setVerdict(int ordinal, Verdict verdict) {
+        if (this.isFailed(ordinal)) {
+            this.failedVerdicts.remove(ordinal);
+        }
+
+        this.statuses[ordinal] = (byte) verdict.getStatus().ordinal();
+        if (verdict.isFailed()) {
+            this.failedVerdicts.put(ordinal, verdict);
+        }
+    }
+
+    public boolean isFailed(int ordinal) {
+        return this.statuses[ordinal] == Verdict.Status.FAILED.ordinal();
+    }
+
+    /**
+     * Return the number of modules in the index.
+     *
+     * @return the number of modules.
+     */
+    public int size() {
+        return this.moduleCount;
+    }
+
+    /**
+     * Return the number of distinct strings interned.
+     *
+     * @return the number of symbols.
+     */
+    public int getSymbolCount() {
+        return this.symbolCount;
+    }
+
+    /**
+     * Intern the given string.
+     *
+     * @param value the string; may be null.
+     * @return the symbol id of the string, or NONE for null.
+     */
+    private int intern(String value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        int slot = this.findSymbolSlot(value);
+        if (this.symbolSlots[slot] != 0) {
+            return this.symbolSlots[slot] - 1;
+        }
+
+        if (this.symbolCount == this.symbols.length) {
+            this.growSymbols();
+            slot = this.findSymbolSlot(value);
+        }
+
+        int id = this.symbolCount++;
+        this.symbols[id] = value;
+        this.symbolSlots[slot] = id + 1;
+
+        return id;
+    }
+
+    private int findSymbol(String value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        return this.symbolSlots[this.findSymbolSlot(value)] - 1;
+    }
+
+    private String symbol(int id) {
+        if (id == NONE) {
+            return null;
+        }
+
+        return this.symbols[id];
+    }
+
+    /**
+     * Return the slot holding the given string, or the empty slot at which to add it.
+     */
+    private int findSymbolSlot(String value) {
+        int mask = this.symbolSlots.length - 1;
+        int slot = mix(value.hashCode()) & mask;
+
+        while ((this.symbolSlots[slot] != 0) && (!value.equals(this.symbols[this.symbolSlots[slot] - 1]))) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Return the slot holding the module with the given group and artifact symbols, or the empty slot at which to add
+     * it.
+     */
+    private int findModuleSlot(int groupSymbol, int artifactSymbol) {
+        int mask = this.moduleSlots.length - 1;
+        int slot = mix((groupSymbol * 31) + artifactSymbol) & mask;
+
+        while (this.moduleSlots[slot] != 0) {
+            int ordinal = this.moduleSlots[slot] - 1;
+            if ((this.groupIds[ordinal] == groupSymbol) && (this.artifactIds[ordinal] == artifactSymbol)) {
+                break;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void growSymbols() {
+        this.symbols = Arrays.copyOf(this.symbols, this.symbols.length * 2);
+        this.symbolSlots = new int[tableSize(this.symbols.length)];
+
+        for (int id = 0; id < this.symbolCount; id++) {
+            this.symbolSlots[this.findSymbolSlot(this.symbols[id])] = id + 1;
+        }
+    }
+
+    private void growModules() {
+        int capacity = this.groupIds.length * 2;
+        this.groupIds = Arrays.copyOf(this.groupIds, capacity);
+        this.artifactIds = Arrays.copyOf(this.artifactIds, capacity);
+        this.versions = Arrays.copyOf(this.versions, capacity);
+        this.parents = Arrays.copyOf(this.parents, capacity);
+        this.statuses = Arrays.copyOf(this.statuses, capacity);
+        this.moduleSlots = new int[tableSize(capacity)];
+
+        for (int ordinal = 0; ordinal < this.moduleCount; ordinal++) {
+            this.moduleSlots[this.findModuleSlot(this.groupIds[ordinal], this.artifactIds[ordinal])] = ordinal + 1;
+        }
+    }
+
+    /**
+     * Return the size of an open-addressing table for the given number of entries: a power of two that keeps the
+     * table at most half full.
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    /**
+     * Spread the bits of a hash code, so that sequential codes do not cluster in the table.
+     */
+    private static int mix(int hash) {
+        int result = hash * 0x9E3779B9;
+        return result ^ (result >>> 16);
+    }
+}
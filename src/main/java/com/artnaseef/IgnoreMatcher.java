@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of the ignore list.  Each entry is either
+ * (a) simply the artifact ID, or
+ * (b) &lt;group-id&gt;:&lt;artifact-id&gt;,
+ * either of which may contain the glob wildcards '*' (any sequence of characters) and '?' (any single character).
+ *
+ * Entries without wildcards are held in hash tables, so they are matched in constant time regardless of the number
+ * of entries, and without building the combined &lt;group-id&gt;:&lt;artifact-id&gt; string.  Entries with
+ * wildcards are combined into a single regular expression for each of the two forms, which is only consulted when
+ * there are any such entries; matching it takes time proportional to the number of those entries.
+ *
+ * Each matcher has a compact id, a hash of the entries of its ignore list, which stands for the whole list in the
+ * cache ids of the rule; the id is the same for equal lists in any JVM.
+ */
+public class IgnoreMatcher {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Length of the id, in hex digits; 128 bits of the hash.
+     */
+    private static final int ID_LENGTH = 32;
+
+    private static final int DIGEST_BUFFER_SIZE = 256;
+
+    /**
+     * Compiled matchers, keyed by the id of their ignore list; bounded to a quarter of the memory allowed for the
+     * caches of the rule.  A build only uses a handful of ignore lists, each looked up once per rule instance, so the
+     * cache is a single segment; that lets the matcher of a very large list fit, rather than be compiled again by
+     * every instance.
+     */
+    private static final BoundedCache<String, IgnoreMatcher> compiledMatchers =
+            new BoundedCache<>((long) (BoundedCache.getTotalMaxBytes() * 0.25), 1,
+                    new BoundedCache.Weigher<String, IgnoreMatcher>() {
+                        @Override
+                        public long weigh(String key, IgnoreMatcher value) {
+                            //
+                            // Each entry is held by the ignore list of the matcher, and again by its hash tables or
+                            // its pattern.
+                            //
+                            long result = 256 + BoundedCache.weighString(key);
+                            for (String specification : value.getSpecifications()) {
+                                result += 2 * BoundedCache.weighString(specification);
+                            }
+
+                            return result;
+                        }
+                    });
+
+    private final List<String> specifications;
+    private final String id;
+
+    private final Map<String, Set<String>> exactGroupArtifacts = new HashMap<>();
+    private final Set<String> exactArtifacts = new HashSet<>();
+    private final Pattern groupArtifactPattern;
+    private final Pattern artifactPattern;
+
+    private IgnoreMatcher(List<String> specifications, String id) {
+        this.specifications = Collections.unmodifiableList(specifications);
+        this.id = id;
+
+        List<String> groupArtifactGlobs = new ArrayList<>();
+        List<String> artifactGlobs = new ArrayList<>();
+
+        for (String specification : specifications) {
+            boolean groupArtifact = (specification.indexOf(':') != -1);
+            boolean glob = ((specification.indexOf('*') != -1) || (specification.indexOf('?') != -1));
+
+            if (glob) {
+                if (groupArtifact) {
+                    groupArtifactGlobs.add(specification);
+                } else {
+                    artifactGlobs.add(specification);
+                }
+            } else {
+                if (groupArtifact) {
+                    int separator = specification.indexOf(':');
+                    String groupId = specification.substring(0, separator);
+
+                    Set<String> artifactIds = this.exactGroupArtifacts.get(groupId);
+                    if (artifactIds == null) {
+                        artifactIds = new HashSet<>();
+                        this.exactGroupArtifacts.put(groupId, artifactIds);
+                    }
+
+                    artifactIds.add(specification.substring(separator + 1));
+                } else {
+                    this.exactArtifacts.add(specification);
+                }
+            }
+        }
+
+        this.groupArtifactPattern = compileGlobs(groupArtifactGlobs);
+        this.artifactPattern = compileGlobs(artifactGlobs);
+    }
+
+    /**
+     * Return the matcher for the given ignore list.  Matchers are shared by all rules configured with the same ignore
+     * list, so each distinct list is only compiled once while it remains in the bounded cache.  Matchers are looked up
+     * by the id of the list, which is computed once per lookup; a rule looks up its matcher once, when configured, and
+     * keeps the ignore list of the matcher rather than a copy of its own.
+     *
+     * @param specifications the ignore list.
+     * @return matcher for the ignore list.
+     */
+    public static IgnoreMatcher forSpecifications(List<String> specifications) {
+        String id = computeId(specifications);
+        IgnoreMatcher result = compiledMatchers.get(id);
+
+        if (result == null) {
+            result = new IgnoreMatcher(new ArrayList<>(specifications), id);
+
+            IgnoreMatcher existing = compiledMatchers.putIfAbsent(id, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the ignore list of this matcher.
+     *
+     * @return the ignore list; immutable.
+     */
+    public List<String> getSpecifications() {
+        return specifications;
+    }
+
+    /**
+     * Return the id of the ignore list of this matcher.
+     *
+     * @return hash of the entries of the ignore list, in hex.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Determine whether the artifact with the given coordinates matches any entry in the ignore list.
+     *
+     * @param groupId group ID of the artifact.
+     * @param artifactId artifact ID of the artifact.
+     * @return true => the artifact matches the ignore list; false => it does not.
+     */
+    public boolean matches(String groupId, String artifactId) {
+        if (this.exactArtifacts.contains(artifactId)) {
+            return true;
+        }
+
+        if ((this.artifactPattern != null) && (this.artifactPattern.matcher(artifactId).matches())) {
+            return true;
+        }
+
+        Set<String> artifactIds = this.exactGroupArtifacts.get(groupId);
+        if ((artifactIds != null) && (artifactIds.contains(artifactId))) {
+            return true;
+        }
+
+        return ((this.groupArtifactPattern != null) &&
+                (this.groupArtifactPattern.matcher(groupId + ":" + artifactId).matches()));
+    }
+
+    /**
+     * Compute the id of the given ignore list: a hash of its entries, in order.  Each entry is prefixed with its
+     * length, so the boundaries between entries are part of the hash.  The characters are fed to the hash through a
+     * small buffer, so computing the id allocates the same amount of memory however long the list is.
+     *
+     * @param specifications the ignore list.
+     * @return the id.
+     */
+    private static String computeId(List<String> specifications) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException noAlgorithmExc) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException("SHA-256 is not available", noAlgorithmExc);
+        }
+
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        int position = 0;
+        for (String specification : specifications) {
+            int length = specification.length();
+            position = appendChar(digest, buffer, position, (char) (length >>> 16));
+            position = appendChar(digest, buffer, position, (char) length);
+
+            for (int index = 0; index < length; index++) {
+                position = appendChar(digest, buffer, position, specification.charAt(index));
+            }
+        }
+        digest.update(buffer, 0, position);
+
+        byte[] hash = digest.digest();
+        char[] result = new char[ID_LENGTH];
+        for (int index = 0; index < ID_LENGTH; index++) {
+            if ((index % 2) == 0) {
+                result[index] = HEX_DIGITS[(hash[index / 2] >> 4) & 0x0f];
+            } else {
+                result[index] = HEX_DIGITS[hash[index / 2] & 0x0f];
+            }
+        }
+
+        return new String(result);
+    }
+
+    /**
+     * Append the given character to the buffer, passing the buffer on to the digest first when it is full.
+     *
+     * @param digest the digest.
+     * @param buffer the buffer, of an even size.
+     * @param position number of bytes in the buffer.
+     * @param ch the character.
+     * @return the number of bytes in the buffer after the character.
+     */
+    private static int appendChar(MessageDigest digest, byte[] buffer, int position, char ch) {
+        if (position == buffer.length) {
+            digest.update(buffer, 0, position);
+            position = 0;
+        }
+
+        buffer[position] = (byte) (ch >>> 8);
+        buffer[position + 1] = (byte) ch;
+
+        return position + 2;
+    }
+
+    /**
+     * Combine the given globs into a single regular expression that matches any one of them.
+     *
+     * @param globs the globs to combine.
+     * @return the compiled expression, or null if there are no globs.
+     */
+    private static Pattern compileGlobs(List<String> globs) {
+        if (globs.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder regex = new StringBuilder();
+        for (String glob : globs) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+
+            int start = 0;
+            for (int pos = 0; pos < glob.length(); pos++) {
+                char ch = glob.charAt(pos);
+
+                if ((ch == '*') || (ch == '?')) {
+                    if (pos > start) {
+                        regex.append(Pattern.quote(glob.substring(start, pos)));
+                    }
+
+                    if (ch == '*') {
+                        regex.append(".*");
+                    } else {
+                        regex.append('.');
+                    }
+
+                    start = pos + 1;
+                }
+            }
+
+            if (start < glob.length()) {
+                regex.append(Pattern.quote(glob.substring(start)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the versions of artifacts present in a local Maven repository, for checking that a parent exists without
+ * resolving it.  The versions of each &lt;group-id&gt;:&lt;artifact-id&gt; are listed from the repository directory
+ * the first time they are needed, and memoized, so each GA costs one directory listing and every later lookup is a
+ * hash lookup.  A version counts as present only when its POM is present, so failed downloads, which leave only
+ * marker files, do not count.
+ *
+ * The scanner builds one index per run, and never touches the network with it.
+ */
+public class LocalRepositoryIndex {
+
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+    private static final String POM_SUFFIX = ".pom";
+
+    private final File directory;
+
+    /**
+     * Versions present, keyed by &lt;group-id&gt;:&lt;artifact-id&gt;.
+     */
+    private final ConcurrentMap<String, Set<String>> versions = new ConcurrentHashMap<>();
+
+    public LocalRepositoryIndex(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Determine whether the POM of the given artifact is present in the repository.
+     *
+     * @param groupId group id of the artifact.
+     * @param artifactId artifact id of the artifact.
+     * @param version version of the artifact.
+     * @return true => the POM is present; false => it is not.
+     */
+    public boolean contains(String groupId, String artifactId, String version) {
+        return this.getVersions(groupId, artifactId).contains(version);
+    }
+
+    /**
+     * Return the versions of the given artifact whose POMs are present in the repository, listing them on first use.
+     *
+     * @param groupId group id of the artifact.
+     * @param artifactId artifact id of the artifact.
+     * @return the versions present; empty if there are none.
+     */
+    public Set<String> getVersions(String groupId, String artifactId) {
+        String key = groupId + ":" + artifactId;
+
+        Set<String> result = this.versions.get(key);
+        if (result == null) {
+            Set<String> listed = this.listVersions(groupId, artifactId);
+            result = this.versions.putIfAbsent(key, listed);
+            if (result == null) {
+                result = listed;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the number of artifacts listed so far.
+     *
+     * @return the number of artifacts.
+     */
+    public int size() {
+        return this.versions.size();
+    }
+
+    /**
+     * List the versions of the given artifact whose POMs are present.  A snapshot version is present with the POM of
+     * a local install or of any timestamped snapshot.
+     */
+    private Set<String> listVersions(String groupId, String artifactId) {
+        File artifactDirectory = new File(new File(this.directory, groupId.replace('.', File.separatorChar)),
+                artifactId);
+
+        File[] versionDirectories = artifactDirectory.listFiles();
+        if (versionDirectories == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new HashSet<>();
+        for (File versionDirectory : versionDirectories) {
+            String version = versionDirectory.getName();
+
+            if (new File(versionDirectory, artifactId + "-" + version + POM_SUFFIX).isFile()) {
+                result.add(version);
+            } else if ((version.endsWith(SNAPSHOT_SUFFIX)) && (this.hasPom(versionDirectory, artifactId))) {
+                result.add(version);
+            }
+        }
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    private boolean hasPom(File versionDirectory, String artifactId) {
+        String[] names = versionDirectory.list();
+        if (names == null) {
+            return false;
+        }
+
+        for (String name : names) {
+            if ((name.startsWith(artifactId + "-")) && (name.endsWith(POM_SUFFIX))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
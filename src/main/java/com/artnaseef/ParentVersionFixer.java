@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Rewrites the &lt;parent&gt;&lt;version&gt; of the POMs that fail validation, using only the versions already known
+ * to the reactor, so no repository is consulted.  Only a POM whose parent is in the reactor is rewritten, to the
+ * version of that reactor project, and only when that makes it pass: a module that declares its own version is left
+ * alone unless its version is the version of the parent.
+ *
+ * Each POM is edited in place by replacing just the text of the version element, so formatting, comments and
+ * everything else in the file are preserved byte for byte.  The edits are independent, and are applied in parallel.
+ */
+public class ParentVersionFixer {
+
+    /**
+     * Encoding used to edit the POMs; every byte maps to a single character and back, so the bytes outside the edit
+     * are preserved whatever the actual encoding of the POM.
+     */
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    /**
+     * Planned, or applied, rewrite of the parent version of a single POM.
+     */
+    public static class Fix {
+
+        private final String projectId;
+        private final File pomFile;
+        private final String oldVersion;
+        private final String newVersion;
+        private final String problem;
+
+        public Fix(String projectId, File pomFile, String oldVersion, String newVersion, String problem) {
+            this.projectId = projectId;
+            this.pomFile = pomFile;
+            this.oldVersion = oldVersion;
+            this.newVersion = newVersion;
+            this.problem = problem;
+        }
+
+        public String getProjectId() {
+            return projectId;
+        }
+
+        public File getPomFile() {
+            return pomFile;
+        }
+
+        public String getOldVersion() {
+            return oldVersion;
+        }
+
+        public String getNewVersion() {
+            return newVersion;
+        }
+
+        /**
+         * Return the reason the POM cannot be, or was not, fixed.
+         *
+         * @return the reason, or null if the POM can be, or was, fixed.
+         */
+        public String getProblem() {
+            return problem;
+        }
+
+        public boolean isFixable() {
+            return this.problem == null;
+        }
+
+        @Override
+        public String toString() {
+            if (this.problem != null) {
+                return this.projectId + ": not fixed; " + this.problem;
+            }
+
+            return this.projectId + ": parent version " + this.oldVersion + " -> " + this.newVersion + " in " +
+                    this.pomFile;
+        }
+    }
+
+    /**
+     * Plan the fixes of all of the projects that failed the given validation of the reactor.  Failures found only by
+     * the ancestor and sibling checks are not planned, since they are fixed along with the projects they point to.
+     *
+     * @param projects all of the projects in the reactor.
+     * @param validation validation of the reactor.
+     * @param versions resolver of CI-friendly version placeholders.
+     * @return the fixes, in reactor order; unfixable ones hold the reason.
+     */
+    public static List<Fix> planFixes(List<MavenProject> projects, ReactorValidation validation,
+                                      CiFriendlyVersions versions) {
+        List<Fix> result = new ArrayList<>();
+        for (MavenProject project : projects) {
+            Verdict verdict = validation.getVerdict(project);
+            if ((verdict != null) && (verdict.isFailed())) {
+                result.add(planFix(project, validation, versions));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Plan the fix of a single project.
+     */
+    private static Fix planFix(MavenProject project, ReactorValidation validation, CiFriendlyVersions versions) {
+        String projectId = project.getGroupId() + ":" + project.getArtifactId();
+        Parent parent = project.getModel().getParent();
+        File pomFile = project.getFile();
+
+        if ((parent == null) || (parent.getVersion() == null)) {
+            return new Fix(projectId, pomFile, null, null, "the pom has no parent version");
+        }
+
+        String oldVersion = parent.getVersion();
+        if (validation.isDuplicated(project.getGroupId(), project.getArtifactId())) {
+            return new Fix(projectId, pomFile, oldVersion, null, "the module is defined by more than one pom");
+        }
+
+        if (pomFile == null) {
+            return new Fix(projectId, null, oldVersion, null, "the pom file is not known");
+        }
+
+        if (CiFriendlyVersions.hasPlaceholder(oldVersion)) {
+            return new Fix(projectId, pomFile, oldVersion, null, "the parent version " + oldVersion +
+                    " is an expression");
+        }
+
+        if (validation.isDuplicated(parent.getGroupId(), parent.getArtifactId())) {
+            return new Fix(projectId, pomFile, oldVersion, null, "the parent is defined by more than one pom");
+        }
+
+        String newVersion = validation.getReactorVersion(parent.getGroupId(), parent.getArtifactId());
+        if (newVersion == null) {
+            return new Fix(projectId, pomFile, oldVersion, null,
+                    "the parent is not in the reactor, so its version is not known");
+        }
+
+        if ((CiFriendlyVersions.hasPlaceholder(newVersion)) ||
+                (!ISO_8859_1.newEncoder().canEncode(newVersion))) {
+            return new Fix(projectId, pomFile, oldVersion, null, "no usable version for the parent");
+        }
+
+        if (newVersion.equals(oldVersion)) {
+            return new Fix(projectId, pomFile, oldVersion, null, "the parent version is already " + oldVersion +
+                    "; the version of the module itself differs");
+        }
+
+        //
+        // The effective model always holds a version, so use the original model, when available, to find whether the
+        //  module declares its own.
+        //
+        Model declaredModel = project.getOriginalModel();
+        if (declaredModel == null) {
+            declaredModel = project.getModel();
+        }
+
+        String ownVersion = versions.resolve(declaredModel.getVersion());
+        if ((ownVersion != null) && (!ownVersion.equals(newVersion))) {
+            return new Fix(projectId, pomFile, oldVersion, null, "the module declares its own version " + ownVersion +
+                    ", which differs from the parent version " + newVersion);
+        }
+
+        return new Fix(projectId, pomFile, oldVersion, newVersion, null);
+    }
+
+    /**
+     * Apply the given fixes in parallel with the given executor.  Unfixable fixes are returned as they are.
+     *
+     * @param fixes the fixes to apply.
+     * @param executor executor on which to rewrite the POMs.
+     * @return the applied fixes, in the same order; those that could not be applied hold the reason.
+     */
+    public static List<Fix> applyFixes(List<Fix> fixes, ExecutorService executor) {
+        List<Future<Fix>> futures = new ArrayList<>(fixes.size());
+        for (final Fix fix : fixes) {
+            if (!fix.isFixable()) {
+                futures.add(null);
+                continue;
+            }
+
+            futures.add(executor.submit(new Callable<Fix>() {
+                @Override
+                public Fix call() {
+                    return apply(fix);
+                }
+            }));
+        }
+
+        List<Fix> result = new ArrayList<>(fixes.size());
+        for (int index = 0; index < fixes.size(); index++) {
+            Future<Fix> future = futures.get(index);
+            if (future == null) {
+                result.add(fixes.get(index));
+                continue;
+            }
+
+            try {
+                result.add(future.get());
+            } catch (InterruptedException interruptedExc) {
+                Thread.currentThread().interrupt();
+                result.add(failed(fixes.get(index), "interrupted"));
+            } catch (ExecutionException executionExc) {
+                result.add(failed(fixes.get(index), String.valueOf(executionExc.getCause())));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Plan and apply the fixes of all of the projects that failed the given validation of the reactor, logging each
+     * of them.
+     *
+     * @param projects all of the projects in the reactor.
+     * @param validation validation of the reactor.
+     * @param versions resolver of CI-friendly version placeholders.
+     * @param log log to which the fixes are reported.
+     * @return the number of POMs rewritten.
+     */
+    public static int fixReactor(List<MavenProject> projects, ReactorValidation validation,
+                                 CiFriendlyVersions versions, Log log) {
+        List<Fix> fixes = planFixes(projects, validation, versions);
+        if (fixes.isEmpty()) {
+            return 0;
+        }
+
+        List<Fix> applied;
+        ForkJoinPool pool = new ForkJoinPool(Math.min(fixes.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            applied = applyFixes(fixes, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        int result = 0;
+        for (Fix fix : applied) {
+            if (fix.isFixable()) {
+                result++;
+                log.info("fixed " + fix);
+            } else {
+                log.warn(fix.toString());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Apply a single fix.
+     */
+    private static Fix apply(Fix fix) {
+        try {
+            if (!rewriteParentVersion(fix.getPomFile(), fix.getOldVersion(), fix.getNewVersion())) {
+                return failed(fix, "the parent version " + fix.getOldVersion() + " was not found in the pom");
+            }
+        } catch (IOException ioExc) {
+            return failed(fix, "unable to rewrite the pom: " + ioExc.getMessage());
+        }
+
+        return fix;
+    }
+
+    private static Fix failed(Fix fix, String problem) {
+        return new Fix(fix.getProjectId(), fix.getPomFile(), fix.getOldVersion(), null, problem);
+    }
+
+    /**
+     * Replace the parent version in the given POM, leaving everything else in the file untouched.  The file is
+     * written to a temporary file first and then moved into place.
+     *
+     * @param pomFile the POM file.
+     * @param oldVersion the parent version expected in the POM.
+     * @param newVersion the new parent version.
+     * @return true => the POM was rewritten; false => the POM does not hold the expected parent version.
+     * @throws IOException when the POM cannot be read or written.
+     */
+    static boolean rewriteParentVersion(File pomFile, String oldVersion, String newVersion) throws IOException {
+        Path path = pomFile.toPath();
+        String content = new String(Files.readAllBytes(path), ISO_8859_1);
+
+        int[] range = findParentVersion(content);
+        if ((range == null) || (!oldVersion.equals(content.substring(range[0], range[1])))) {
+            return false;
+        }
+
+        String updated = content.substring(0, range[0]) + newVersion + content.substring(range[1]);
+
+        Path tempFile = Files.createTempFile(path.toAbsolutePath().getParent(), pomFile.getName(), ".tmp");
+        try {
+            Files.write(tempFile, updated.getBytes(ISO_8859_1));
+            try {
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException atomicMoveExc) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        return true;
+    }
+
+    /**
+     * Find the text of the &lt;version&gt; in the &lt;parent&gt; of the root element, in a single pass over the
+     * content.  Comments, CDATA sections, processing instructions and the document type are skipped.
+     *
+     * @param content content of the POM.
+     * @return the start and end offsets of the version text, without surrounding whitespace, or null if not found.
+     */
+    static int[] findParentVersion(String content) {
+        int depth = 0;
+        boolean inParent = false;
+        int pos = 0;
+
+        while (true) {
+            int open = content.indexOf('<', pos);
+            if (open < 0) {
+                return null;
+            }
+
+            if (content.startsWith("<!--", open)) {
+                pos = skipPast(content, open + 4, "-->");
+            } else if (content.startsWith("<![CDATA[", open)) {
+                pos = skipPast(content, open + 9, "]]>");
+            } else if (content.startsWith("<?", open)) {
+                pos = skipPast(content, open + 2, "?>");
+            } else if (content.startsWith("<!", open)) {
+                pos = skipPast(content, open + 2, ">");
+            } else {
+                int close = findTagEnd(content, open + 1);
+                if (close < 0) {
+                    return null;
+                }
+
+                boolean endTag = (content.charAt(open + 1) == '/');
+                boolean emptyTag = (content.charAt(close - 1) == '/');
+                String name = tagName(content, endTag ? open + 2 : open + 1);
+
+                if (endTag) {
+                    if ((inParent) && (depth == 2)) {
+                        return null;
+                    }
+                    depth--;
+                } else {
+                    depth++;
+
+                    if ((depth == 2) && ("parent".equals(name)) && (!emptyTag)) {
+                        inParent = true;
+                    } else if ((inParent) && (depth == 3) && ("version".equals(name))) {
+                        if (emptyTag) {
+                            return null;
+                        }
+
+                        int start = close + 1;
+                        int end = content.indexOf('<', start);
+                        if (end < 0) {
+                            return null;
+                        }
+
+                        while ((start < end) && (Character.isWhitespace(content.charAt(start)))) {
+                            start++;
+                        }
+                        while ((end > start) && (Character.isWhitespace(content.charAt(end - 1)))) {
+                            end--;
+                        }
+
+                        return new int[]{start, end};
+                    }
+
+                    if (emptyTag) {
+                        depth--;
+                    }
+                }
+
+                pos = close + 1;
+            }
+
+            if (pos < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Return the offset just past the given terminator, searching from the given offset; -1 if not found.
+     */
+    private static int skipPast(String content, int from, String terminator) {
+        int found = content.indexOf(terminator, from);
+        if (found < 0) {
+            return -1;
+        }
+
+        return found + terminator.length();
+    }
+
+    /**
+     * Return the offset of the '&gt;' ending the tag, skipping quoted attribute values; -1 if not found.
+     */
+    private static int findTagEnd(String content, int from) {
+        char quote = 0;
+        for (int index = from; index < content.length(); index++) {
+            char ch = content.charAt(index);
+            if (quote != 0) {
+                if (ch == quote) {
+                    quote = 0;
+                }
+            } else if ((ch == '"') || (ch == '\'')) {
+                quote = ch;
+            } else if (ch == '>') {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Return the local name of the tag starting at the given offset, without any namespace prefix.
+     */
+    private static String tagName(String content, int from) {
+        int end = from;
+        while ((end < content.length()) && (!Character.isWhitespace(content.charAt(end))) &&
+                (content.charAt(end) != '>') && (content.charAt(end) != '/')) {
+            end++;
+        }
+
+        String name = content.substring(from, end);
+        int prefix = name.indexOf(':');
+        if (prefix >= 0) {
+            return name.substring(prefix + 1);
+        }
+
+        return name;
+    }
+}
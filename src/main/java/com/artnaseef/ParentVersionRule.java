@@ -24,10 +24,20 @@ package com.artnaseef;
 import org.apache.maven.enforcer.rule.api.EnforcerRule;
 import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
 import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Parent;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
 
-import java.util.LinkedList;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Maven Enforcer Plugin rule that verifies the parent version of artifacts matches the version of the artifact itself
@@ -42,176 +52,1197 @@ import java.util.List;
  *  &lt;/ignore&gt;
  * </p>
  *
+ * Reactor validation, the checks of ancestors and sibling versions, collected violations, metrics, changed-modules
+ * validation, the verdict report and the resolution of CI-friendly versions all work across the projects of the
+ * build, so they need the maven session, and most of them the current project as well; each execution evaluates both
+ * once.  When they are not available, as when the rule runs outside of a maven build, the features that need them
+ * are skipped, and the project is validated on its own.
+ *
+ * Thread safety: the enforcer uses a separate instance of the rule for each execution, so the state of a single
+ * execution is held in the instance.  All of the state shared between executions, which may run concurrently in
+ * parallel (-T) builds, is either immutable (the ignore list, compiled ignore matchers, reactor validations) or held
+ * in concurrent structures (the verdict cache, the build session state, violation collectors and metrics).
+ *
  * Created by art on 2/17/16.
  */
 public class ParentVersionRule implements EnforcerRule {
 
     /**
-     * List of artifacts to ignore, each specified as either
-     * (a) simply the artifact ID, or
-     * (b) &lt;group-id&gt;:&lt;artifact-id&gt;
+     * Execution id recorded in the verdict report when the execution of the enforcer is not known.
+     */
+    static final String DEFAULT_EXECUTION_ID = "default";
+
+    /**
+     * List of artifacts to ignore, each specified as either
+     * (a) simply the artifact ID, or
+     * (b) &lt;group-id&gt;:&lt;artifact-id&gt;
+     * either of which may contain the glob wildcards '*' and '?'.  Held as an immutable snapshot.
+     */
+    private volatile List<String> ignore = Collections.emptyList();
+
+    /**
+     * Whether to ignore artifacts which have no parent.
+     */
+    private boolean ignoreMissingParent = true;
+
+    /**
+     * Whether to validate all of the projects in the reactor in a single pass, on the first execution of the rule in
+     * the build, and then just report the verdict of each project as the rule executes on it.
+     */
+    private boolean reactorValidation = false;
+
+    /**
+     * Policy for matching the version of a project to the version of its parent: exact (the default), equivalent,
+     * ignore-qualifier, same-major-minor, or same-major.  The version of the parent in the POM is always required to
+     * match the effective version of the parent exactly.
+     */
+    private VersionPolicy versionPolicy = VersionPolicy.EXACT;
+
+    /**
+     * Whether to also fail a project when any of its ancestors in the reactor, rather than just its direct parent,
+     * fails validation.
+     */
+    private boolean validateAncestors = false;
+
+    /**
+     * Whether to also fail a project when the &lt;group-id&gt;:&lt;artifact-id&gt; of its parent is referenced with
+     * more than one version across the reactor.
+     */
+    private boolean checkSiblingVersions = false;
+
+    /**
+     * Whether to collect the violations of all of the projects in the build and report them together in a single
+     * failure, rather than failing the build at the first one.
+     */
+    private boolean collectViolations = false;
+
+    /**
+     * Whether to rewrite the parent version in the POM of every project that fails reactor validation, using the
+     * versions of the projects in the reactor.  The build still fails, since the current build already read the POMs;
+     * rerunning it picks up the fixes.  Requires reactorValidation; the rule fails when fix is set without it.
+     */
+    private boolean fix = false;
+
+    /**
+     * Whether to collect metrics of the executions of the rule, and log a summary of them once every project in the
+     * reactor has executed the rule.
+     */
+    private boolean metrics = false;
+
+    /**
+     * File to which to write the metrics, as JSON, along with the summary; null to only log the summary.
+     */
+    private File metricsFile;
+
+    /**
+     * Git ref against which to find the changed files, such as origin/master.  When set, only the projects whose POM,
+     * or the POM of an ancestor, changed since the working tree diverged from the ref are validated; the rest get an
+     * unchanged verdict.
+     */
+    private String changedSince;
+
+    /**
+     * File listing the changed files, one per line, relative to the execution root directory; an alternative to
+     * changedSince for builds that already know the changed files.  Takes precedence over changedSince.
+     */
+    private File changedFilesList;
+
+    /**
+     * File to which to stream a record of the verdict of every project, finalized as a JSON or SARIF document once every
+     * project in the reactor has executed the rule; null disables the report.
+     */
+    private File reportFile;
+
+    /**
+     * Format of the report file: json (the default) or sarif.
+     */
+    private VerdictReport.Format reportFormat = VerdictReport.Format.JSON;
+
+    /**
+     * Verdicts of previous executions, keyed by the configuration cache id and the project coordinates.  The key
+     * captures every input of the verdict, so a cached verdict stays valid for the life of the JVM; this lets repeat
+     * executions of the rule on the same module (e.g. the enforcer running in more than one phase, or repeat builds in
+     * the Maven daemon) skip the validation.  Bounded to half of the memory allowed for the caches of the rule.
+     */
+    private static final BoundedCache<VerdictKey, Verdict> verdictCache =
+            new BoundedCache<>(0.5, new BoundedCache.Weigher<VerdictKey, Verdict>() {
+                @Override
+                public long weigh(VerdictKey key, Verdict value) {
+                    if (value.isFailed()) {
+                        return key.weigh() + BoundedCache.weighString(value.getReason()) + 24;
+                    }
+
+                    return key.weigh();
+                }
+            });
+
+    /**
+     * Compiled form of the ignore list; looked up when the list is set, or on first use for the default list.
+     */
+    private volatile IgnoreMatcher ignoreMatcher;
+
+    /**
+     * Portion of the cache id derived from the rule configuration, with the ignore list reduced to its id; built on
+     * first use.
+     */
+    private volatile String configurationCacheId;
+
+    /**
+     * Key of the verdict of the most recent execution of this rule instance; null until executed.
+     */
+    private volatile VerdictKey verdictKey;
+
+    /**
+     * Metrics of the build for the current execution; null when metrics are disabled.
+     */
+    private RuleMetrics executionMetrics;
+
+    public List<String> getIgnore() {
+        return ignore;
+    }
+
+    /**
+     * Set the ignore list.  The list is compiled, or its compiled form looked up, right away, and the rule keeps the
+     * immutable ignore list of the compiled form, so later changes to the given list have no effect on the rule, and
+     * rules configured with equal lists share a single copy.
+     *
+     * @param ignore the ignore list; null for none.
+     */
+    public void setIgnore(List<String> ignore) {
+        IgnoreMatcher matcher;
+        if (ignore == null) {
+            matcher = IgnoreMatcher.forSpecifications(Collections.<String>emptyList());
+        } else {
+            matcher = IgnoreMatcher.forSpecifications(ignore);
+        }
+
+        this.ignore = matcher.getSpecifications();
+        this.ignoreMatcher = matcher;
+        this.configurationCacheId = null;
+    }
+
+    public boolean isIgnoreMissingParent() {
+        return ignoreMissingParent;
+    }
+
+    public void setIgnoreMissingParent(boolean ignoreMissingParent) {
+        this.ignoreMissingParent = ignoreMissingParent;
+        this.configurationCacheId = null;
+    }
+
+    public boolean isReactorValidation() {
+        return reactorValidation;
+    }
+
+    public void setReactorValidation(boolean reactorValidation) {
+        this.reactorValidation = reactorValidation;
+    }
+
+    public VersionPolicy getVersionPolicy() {
+        return versionPolicy;
+    }
+
+    /**
+     * Set the version policy by name.
+     *
+     * @param versionPolicy name of the policy, such as same-major-minor.
+     * @throws IllegalArgumentException when there is no policy with the name.
+     */
+    public void setVersionPolicy(String versionPolicy) {
+        this.versionPolicy = VersionPolicy.forConfigName(versionPolicy);
+        this.configurationCacheId = null;
+    }
+
+    public boolean isValidateAncestors() {
+        return validateAncestors;
+    }
+
+    public void setValidateAncestors(boolean validateAncestors) {
+        this.validateAncestors = validateAncestors;
+        this.configurationCacheId = null;
+    }
+
+    public boolean isCheckSiblingVersions() {
+        return checkSiblingVersions;
+    }
+
+    public void setCheckSiblingVersions(boolean checkSiblingVersions) {
+        this.checkSiblingVersions = checkSiblingVersions;
+        this.configurationCacheId = null;
+    }
+
+    public boolean isCollectViolations() {
+        return collectViolations;
+    }
+
+    public void setCollectViolations(boolean collectViolations) {
+        this.collectViolations = collectViolations;
+    }
+
+    public boolean isFix() {
+        return fix;
+    }
+
+    public void setFix(boolean fix) {
+        this.fix = fix;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public File getMetricsFile() {
+        return metricsFile;
+    }
+
+    public void setMetricsFile(File metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    public String getChangedSince() {
+        return changedSince;
+    }
+
+    public void setChangedSince(String changedSince) {
+        this.changedSince = changedSince;
+    }
+
+    public File getChangedFilesList() {
+        return changedFilesList;
+    }
+
+    public void setChangedFilesList(File changedFilesList) {
+        this.changedFilesList = changedFilesList;
+    }
+
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    public VerdictReport.Format getReportFormat() {
+        return reportFormat;
+    }
+
+    /**
+     * Set the report format by name.
+     *
+     * @param reportFormat name of the format, json or sarif.
+     * @throws IllegalArgumentException when there is no format with the name.
+     */
+    public void setReportFormat(String reportFormat) {
+        this.reportFormat = VerdictReport.Format.forConfigName(reportFormat);
+    }
+
+    /**
+     * Validate the parent version; this is the main method for this rule.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @throws EnforcerRuleException on any validation failure, or when fix is set without reactorValidation.
+     */
+    public void execute(EnforcerRuleHelper enforcerRuleHelper) throws EnforcerRuleException {
+        if ((this.fix) && (!this.reactorValidation)) {
+            throw new EnforcerRuleException("fix requires reactorValidation; enable reactorValidation, or remove fix");
+        }
+
+        long start = System.nanoTime();
+        this.executionMetrics = null;
+
+
+        //
+        // Evaluate the session and the project once, for all of the features that need them.
+        //
+        MavenSession session = null;
+        Object value = evaluateIfAvailable(enforcerRuleHelper, "${session}");
+        if (value instanceof MavenSession) {
+            session = (MavenSession) value;
+        }
+
+        MavenProject project = null;
+        value = evaluateIfAvailable(enforcerRuleHelper, "${project}");
+        if (value instanceof MavenProject) {
+            project = (MavenProject) value;
+        }
+
+        if (((session == null) || (project == null)) && (enforcerRuleHelper.getLog().isDebugEnabled())) {
+            enforcerRuleHelper.getLog().debug("maven session or project not available; validating this artifact " +
+                    "on its own");
+        }
+
+        if ((!this.metrics) || (session == null)) {
+            this.executeRule(enforcerRuleHelper, session, project);
+            return;
+        }
+
+        //
+        // The metrics are only found through the session, so count the evaluations of the session and project here.
+        //
+        this.executionMetrics = BuildSessionState.get(session).getMetrics();
+        this.executionMetrics.recordEvaluation();
+        this.executionMetrics.recordEvaluation();
+
+        try {
+            this.executeRule(enforcerRuleHelper, session, project);
+        } finally {
+            this.executionMetrics.recordExecution(System.nanoTime() - start);
+            if (project != null) {
+                this.reportMetrics(enforcerRuleHelper, session, project);
+            }
+        }
+    }
+
+    /**
+     * Validate the parent version of the current project.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session; null if not available.
+     * @param project the current project; null if not available.
+     * @throws EnforcerRuleException on any validation failure.
+     */
+    private void executeRule(EnforcerRuleHelper enforcerRuleHelper, MavenSession session, MavenProject project)
+            throws EnforcerRuleException {
+
+        boolean reactorAvailable = (session != null) && (project != null);
+        if ((this.reactorValidation) && (reactorAvailable) &&
+                (this.executeReactorValidation(enforcerRuleHelper, session, project))) {
+            return;
+        }
+
+        ProjectCoordinates coordinates = this.resolveCiFriendlyVersions(session,
+                this.readCoordinates(enforcerRuleHelper, project));
+
+
+        //
+        // Use the verdict of a previous execution with the same inputs, if there is one; otherwise validate now.
+        //
+        this.verdictKey = new VerdictKey(this.getConfigurationCacheId(), coordinates);
+
+        Verdict verdict;
+        if ((this.isIncremental()) && (reactorAvailable) &&
+                (this.isUnchanged(enforcerRuleHelper, this.obtainChangedModules(enforcerRuleHelper, session),
+                        project))) {
+            verdict = Verdict.UNCHANGED;
+        } else {
+            verdict = this.obtainVerdict(enforcerRuleHelper, coordinates);
+            if (((this.validateAncestors) || (this.checkSiblingVersions)) && (reactorAvailable)) {
+                verdict = this.applyReactorChecks(this.obtainReactorValidation(enforcerRuleHelper, session), project,
+                        verdict);
+            }
+        }
+
+        this.recordVerdict(enforcerRuleHelper, session, project, coordinates, verdict);
+
+        if ((this.collectViolations) && (session != null)) {
+            this.collectVerdict(enforcerRuleHelper, session,
+                    coordinates.getGroupId() + ":" + coordinates.getArtifactId(), verdict);
+            return;
+        }
+
+        this.applyVerdict(enforcerRuleHelper, verdict);
+    }
+
+    /**
+     * Return the verdict of the current project, from a previous execution with the same inputs if there is one, and
+     * otherwise by validating it now.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param coordinates coordinates of the current project.
+     * @return the verdict of the current project.
+     */
+    private Verdict obtainVerdict(EnforcerRuleHelper enforcerRuleHelper, ProjectCoordinates coordinates) {
+        Verdict verdict = verdictCache.get(this.verdictKey);
+        if (verdict == null) {
+            verdict = this.validate(enforcerRuleHelper.getLog(), coordinates);
+            verdictCache.putIfAbsent(this.verdictKey, verdict);
+        } else {
+            if (this.executionMetrics != null) {
+                this.executionMetrics.recordCacheHit();
+            }
+            if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                enforcerRuleHelper.getLog().debug("using cached result for " + this.verdictKey);
+            }
+        }
+
+        return verdict;
+    }
+
+    /**
+     * Record the verdict of the current project in the violation collector of the build, and report all of the
+     * violations collected once every project in the reactor has recorded its verdict, in whatever order the projects
+     * execute.  Every project in the reactor has to execute the rule with this configuration: should one skip it, the
+     * violations collected are never reported.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @param projectId &lt;group-id&gt;:&lt;artifact-id&gt; of the current project.
+     * @param verdict verdict of the current project.
+     * @throws EnforcerRuleException when this is the last project to record its verdict, and violations were
+     * collected; or when this project failed after the violations were reported.
+     */
+    private void collectVerdict(EnforcerRuleHelper enforcerRuleHelper, MavenSession session, String projectId,
+                                Verdict verdict) throws EnforcerRuleException {
+
+        BuildSessionState sessionState = BuildSessionState.get(session);
+        String configurationId = this.getConfigurationCacheId();
+        ViolationCollector collector = sessionState.getViolationCollector(configurationId);
+
+        if (verdict.isFailed()) {
+            if (!collector.add(projectId, verdict.getReason())) {
+                throw new EnforcerRuleException("parent version violation in " + projectId + " after the " +
+                        "violations of the build were reported: " + verdict.getReason());
+            }
+        } else {
+            this.applyVerdict(enforcerRuleHelper, verdict);
+        }
+
+
+        //
+        // Report everything collected once every project in the reactor has been validated.
+        //
+        if (sessionState.getCountdown("violations:" + configurationId, session).countDown(projectId)) {
+            this.reportViolations(collector);
+        }
+    }
+
+    /**
+     * Fail with all of the violations in the given collector, unless there are none or they were already reported.
+     *
+     * @param collector the violation collector.
+     * @throws EnforcerRuleException when there are violations to report.
+     */
+    private void reportViolations(ViolationCollector collector) throws EnforcerRuleException {
+        String report = collector.takeReport();
+        if (report != null) {
+            throw new EnforcerRuleException(report);
+        }
+    }
+
+    /**
+     * Report the verdict of the current project from the validation of the whole reactor, performing that validation
+     * if this is the first execution of the rule, with this configuration, in the build.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @param project the current project.
+     * @return true => the project was validated; false => the project is not part of the reactor, and needs to be
+     * validated on its own.
+     * @throws EnforcerRuleException on any validation failure.
+     */
+    private boolean executeReactorValidation(EnforcerRuleHelper enforcerRuleHelper, MavenSession session,
+                                             MavenProject project) throws EnforcerRuleException {
+
+        ReactorValidation validation = this.obtainReactorValidation(enforcerRuleHelper, session);
+
+        Verdict verdict = validation.getVerdict(project);
+        if (verdict == null) {
+            if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                enforcerRuleHelper.getLog().debug("project is not part of the reactor; validating this artifact on its " +
+                        "own");
+            }
+            return false;
+        }
+
+        verdict = this.applyReactorChecks(validation, project, verdict);
+
+        ChangedModules changedModules = ChangedModules.ALL;
+        if (this.isIncremental()) {
+            changedModules = this.obtainChangedModules(enforcerRuleHelper, session);
+            if (this.isUnchanged(enforcerRuleHelper, changedModules, project)) {
+                verdict = Verdict.UNCHANGED;
+            }
+        }
+
+        this.recordVerdict(enforcerRuleHelper, session, project, ProjectCoordinates.fromProject(project), verdict);
+
+
+        //
+        // When collecting violations, the whole reactor is already validated, so report all of them right away.
+        //
+        if (this.collectViolations) {
+            ViolationCollector collector = BuildSessionState.get(session)
+                    .getViolationCollector(this.getConfigurationCacheId());
+            Set<String> unchangedProjects = this.findUnchangedProjects(enforcerRuleHelper, changedModules, session,
+                    validation);
+            for (Map.Entry<String, Verdict> failure : validation.getFailedVerdicts().entrySet()) {
+                if (!unchangedProjects.contains(failure.getKey())) {
+                    collector.add(failure.getKey(), failure.getValue().getReason());
+                }
+            }
+
+            this.reportViolations(collector);
+
+            if (!verdict.isFailed()) {
+                this.applyVerdict(enforcerRuleHelper, verdict);
+            }
+
+            return true;
+        }
+
+        this.applyVerdict(enforcerRuleHelper, verdict);
+
+        return true;
+    }
+
+    /**
+     * Determine whether changed-modules-only validation is enabled.
+     *
+     * @return true => only the changed projects are validated; false => all projects are validated.
+     */
+    private boolean isIncremental() {
+        return (this.changedFilesList != null) || (this.changedSince != null);
+    }
+
+    /**
+     * Determine whether the given project is unchanged, treating it as changed when the paths of its POMs cannot be
+     * resolved.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param changedModules the changed modules of the build.
+     * @param project the project.
+     * @return true => the project is unchanged; false => it changed, or the changes cannot be determined.
+     */
+    private boolean isUnchanged(EnforcerRuleHelper enforcerRuleHelper, ChangedModules changedModules,
+                                MavenProject project) {
+        try {
+            return !changedModules.isChanged(project);
+        } catch (IOException ioExc) {
+            enforcerRuleHelper.getLog().warn("unable to resolve the pom of " + project.getGroupId() + ":" +
+                    project.getArtifactId() + "; validating it regardless of changes", ioExc);
+            return false;
+        }
+    }
+
+    /**
+     * Find the projects with failed verdicts in the given reactor validation which are unchanged, so their failures
+     * can be left out of the collected violations.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param changedModules the changed modules of the build.
+     * @param session the maven session.
+     * @param validation the validation of the reactor.
+     * @return &lt;group-id&gt;:&lt;artifact-id&gt; of the unchanged projects that failed.
+     */
+    private Set<String> findUnchangedProjects(EnforcerRuleHelper enforcerRuleHelper, ChangedModules changedModules,
+                                              MavenSession session, ReactorValidation validation) {
+
+        if ((changedModules == ChangedModules.ALL) || (validation.getFailedVerdicts().isEmpty())) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new HashSet<>();
+        for (MavenProject reactorProject : session.getSortedProjects()) {
+            String projectId = reactorProject.getGroupId() + ":" + reactorProject.getArtifactId();
+            if ((validation.getFailedVerdicts().containsKey(projectId)) &&
+                    (this.isUnchanged(enforcerRuleHelper, changedModules, reactorProject))) {
+                result.add(projectId);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the changed modules of the build, reading the changed files on the first use in the build.  When the
+     * changed files cannot be determined, a warning is logged and every module is validated.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @return the changed modules.
+     */
+    private ChangedModules obtainChangedModules(EnforcerRuleHelper enforcerRuleHelper, MavenSession session) {
+        BuildSessionState sessionState = BuildSessionState.get(session);
+
+        String source;
+        if (this.changedFilesList != null) {
+            source = "list=" + this.changedFilesList.getAbsolutePath();
+        } else {
+            source = "git=" + this.changedSince;
+        }
+
+        synchronized (sessionState) {
+            ChangedModules result = sessionState.getChangedModules(source);
+            if (result == null) {
+                String executionRoot = session.getExecutionRootDirectory();
+                if (executionRoot == null) {
+                    executionRoot = System.getProperty("user.dir");
+                }
+
+                try {
+                    if (this.changedFilesList != null) {
+                        result = ChangedModules.fromFileList(this.changedFilesList, new File(executionRoot));
+                    } else {
+                        result = ChangedModules.fromGit(new File(executionRoot), this.changedSince);
+                    }
+
+                    if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                        enforcerRuleHelper.getLog().debug("found " + result.size() + " changed files from " + source);
+                    }
+                } catch (IOException ioExc) {
+                    enforcerRuleHelper.getLog().warn("unable to determine the changed files from " + source +
+                            "; validating all modules", ioExc);
+                    result = ChangedModules.ALL;
+                }
+
+                result = sessionState.putChangedModules(source, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Return the validation of the whole reactor for this rule configuration, performing it if this is the first
+     * execution of the rule, with this configuration, in the build.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @return the validation of the reactor.
+     */
+    private ReactorValidation obtainReactorValidation(EnforcerRuleHelper enforcerRuleHelper, MavenSession session) {
+        BuildSessionState sessionState = BuildSessionState.get(session);
+        String configurationId = this.getConfigurationCacheId();
+
+        //
+        // Validate the entire reactor on the first execution; all the later ones just look up their verdict.
+        //
+        synchronized (sessionState) {
+            ReactorValidation validation = sessionState.getReactorValidation(configurationId);
+            if (validation == null) {
+                List<MavenProject> projects = session.getSortedProjects();
+
+                if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                    enforcerRuleHelper.getLog().debug("validating all " + projects.size() + " projects in the reactor");
+                }
+
+                CiFriendlyVersions versions = sessionState.getCiFriendlyVersions(session);
+                validation = sessionState.putReactorValidation(configurationId, ReactorValidation.validate(this,
+                        projects, versions, enforcerRuleHelper.getLog()));
+
+                if (this.fix) {
+                    int fixed = ParentVersionFixer.fixReactor(projects, validation, versions,
+                            enforcerRuleHelper.getLog());
+                    if (fixed > 0) {
+                        enforcerRuleHelper.getLog().warn("rewrote the parent version in " + fixed + " pom(s); rerun " +
+                                "the build to validate them");
+                    }
+                }
+            }
+
+            return validation;
+        }
+    }
+
+    /**
+     * Apply the configured checks of the given project against the rest of the reactor: the validation of its
+     * ancestors, and the consistency of its parent version with the other projects that have the same parent.
+     * Projects that already failed, or are ignored, are not checked.
+     *
+     * @param validation validation of the whole reactor.
+     * @param project the project.
+     * @param verdict verdict of the project itself.
+     * @return the verdict of the first failed check, if any; otherwise the given verdict.
+     */
+    private Verdict applyReactorChecks(ReactorValidation validation, MavenProject project, Verdict verdict) {
+        if ((verdict.isFailed()) || (verdict == Verdict.IGNORED)) {
+            return verdict;
+        }
+
+        if (this.validateAncestors) {
+            Verdict ancestorVerdict = validation.getAncestorVerdict(project);
+            if (ancestorVerdict != null) {
+                return ancestorVerdict;
+            }
+        }
+
+        if (this.checkSiblingVersions) {
+            Verdict siblingVerdict = validation.getSiblingVerdict(project);
+            if (siblingVerdict != null) {
+                return siblingVerdict;
+            }
+        }
+
+        return verdict;
+    }
+
+    /**
+     * The rule does not use the result cache of the enforcer.  The enforcer asks a freshly configured rule for its
+     * cache id before executing it, when the project is not known yet, so the id can only cover the configuration, and
+     * would make one module reuse the result of another.  The rule caches its verdicts itself instead, keyed by
+     * configuration and project coordinates.
+     *
+     * @return false.
      */
-    private List<String> ignore = new LinkedList<>();
+    public boolean isCacheable() {
+        return false;
+    }
 
     /**
-     * Whether to ignore artifacts which have no parent.
+     * Never valid; see isCacheable().  A fresh rule cannot tell which project it is about to validate, so it cannot
+     * tell whether the result of another rule applies to it.
+     *
+     * @param enforcerRule previously-executed rule.
+     * @return false.
      */
-    private boolean ignoreMissingParent = true;
-
-    public List<String> getIgnore() {
-        return ignore;
+    public boolean isResultValid(EnforcerRule enforcerRule) {
+        return false;
     }
 
-    public void setIgnore(List<String> ignore) {
-        this.ignore = ignore;
+    /**
+     * Return the cache id of this rule: the rule configuration combined with the project and parent coordinates, once
+     * the rule has executed, or just the rule configuration otherwise.
+     *
+     * @return id identifying the inputs of this rule's result.
+     */
+    public String getCacheId() {
+        VerdictKey key = this.verdictKey;
+        if (key != null) {
+            return key.toString();
+        }
+
+        return this.getConfigurationCacheId();
     }
 
-    public boolean isIgnoreMissingParent() {
-        return ignoreMissingParent;
+    /**
+     * Clear the verdicts cached by all executions of the rule.
+     */
+    static void clearVerdictCache() {
+        verdictCache.clear();
     }
 
-    public void setIgnoreMissingParent(boolean ignoreMissingParent) {
-        this.ignoreMissingParent = ignoreMissingParent;
+    static int getVerdictCacheSize() {
+        return verdictCache.size();
     }
 
     /**
-     * Validate the parent version; this is the main method for this rule.
+     * Validate the artifact with the given coordinates against its parent.
      *
-     * @param enforcerRuleHelper enforcer interface to the build.
-     * @throws EnforcerRuleException on any validation failure.
+     * @param log log for debug output.
+     * @param coordinates coordinates of the artifact being built.
+     * @return verdict for the artifact.
      */
-    public void execute(EnforcerRuleHelper enforcerRuleHelper) throws EnforcerRuleException {
-        String projectVersion;
-        String parentVersion;
-        String parentArtifactVersion;
+    Verdict validate(Log log, ProjectCoordinates coordinates) {
+        String projectVersion = coordinates.getVersion();
+        String parentVersion = coordinates.getParentVersion();
+        String parentArtifactVersion = coordinates.getParentArtifactVersion();
 
         //
         // Check whether to ignore this artifact.  A commonly ignored artifact will be the parent of the module
         //  hierarchy.
         //
-        try {
-            if (this.checkIgnore(enforcerRuleHelper)) {
-                enforcerRuleHelper.getLog().debug("ignoring this artifact; it matches the ignore list");
-                return;
-            }
-        } catch (ExpressionEvaluationException evalExc) {
-            throw new EnforcerRuleException("error while checking the ignore list", evalExc);
+        if (this.checkIgnore(log, coordinates.getGroupId(), coordinates.getArtifactId())) {
+            return Verdict.IGNORED;
         }
 
 
         //
-        // Read the project version.
+        // If the parent version is missing, ignore this artifact if configured to do so.
         //
-        try {
-            projectVersion = this.getProperty(enforcerRuleHelper, "project.version", "unknown-project-version");
-        } catch (ExpressionEvaluationException evalExc) {
-            throw new EnforcerRuleException("unable to determine the project version", evalExc);
+        if ((ignoreMissingParent) && (!coordinates.hasParent())) {
+            return Verdict.MISSING_PARENT;
         }
 
 
         //
-        // Read the parent project version - the effective one in-use for this build.
+        // Verify the project version and the parent version match, under the configured policy.
         //
-        try {
-            parentVersion = this.getProperty(enforcerRuleHelper, "project.parent.version", "unknown-project-parent-version");
-
-            //
-            // If the parent version is missing, ignore this artifact if configured to do so.
-            //
-            if ((ignoreMissingParent) && (parentVersion.equals("unknown-project-parent-version"))) {
-                enforcerRuleHelper.getLog().debug("ignoring this artifact due to no/missing parent");
-                return;
+        if (!(this.versionPolicy.matches(projectVersion, parentVersion))) {
+            if (this.versionPolicy != VersionPolicy.EXACT) {
+                return Verdict.failed("parent and project version mismatch: project=" + projectVersion + "; parent=" +
+                        parentVersion + "; policy=" + this.versionPolicy);
             }
-        } catch (ExpressionEvaluationException evalExc) {
-            throw new EnforcerRuleException("unable to determine the parent version", evalExc);
+
+            return Verdict.failed("parent and project version mismatch: project=" + projectVersion + "; parent=" +
+                    parentVersion);
         }
 
 
         //
-        // Read the parent version from the POM.
+        // Also verify the effective parent version for this build is the same as the one specified in the POM.
         //
+        if (!(parentArtifactVersion.equals(parentVersion))) {
+            return Verdict.failed("actual parent version does not match the one listed in the pom: " +
+                    "actual parent version=" + parentVersion + "; version from pom=" + parentArtifactVersion);
+        }
+
+        return Verdict.PASSED;
+    }
+
+    /**
+     * Report the given verdict to the build, failing the rule if the verdict is a failure.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param verdict verdict to report.
+     * @throws EnforcerRuleException when the verdict is a failure.
+     */
+    private void applyVerdict(EnforcerRuleHelper enforcerRuleHelper, Verdict verdict) throws EnforcerRuleException {
+        switch (verdict.getStatus()) {
+            case IGNORED:
+            case MISSING_PARENT:
+            case UNCHANGED:
+                if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                    enforcerRuleHelper.getLog().debug(verdict.getReason());
+                }
+                break;
+
+            case FAILED:
+                throw new EnforcerRuleException(verdict.getReason());
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Check whether the artifact being validated is in the ignore list.
+     *
+     * @param log log for debug output.
+     * @param group group ID of the artifact being built.
+     * @param artifact artifact ID of the artifact being built.
+     * @return true => the artifact should be ignored; false => the artifact should be processed normally.
+     */
+    private boolean checkIgnore(Log log, String group, String artifact) {
+        if (log.isDebugEnabled()) {
+            log.debug("checking ignore of <group>:<artifact>=" + group + ":" + artifact);
+        }
+
+        boolean result = this.obtainIgnoreMatcher().matches(group, artifact);
+        if (this.executionMetrics != null) {
+            this.executionMetrics.recordIgnoreCheck(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the compiled form of the ignore list, looking it up on first use.
+     *
+     * @return the ignore matcher.
+     */
+    private IgnoreMatcher obtainIgnoreMatcher() {
+        IgnoreMatcher result = this.ignoreMatcher;
+        if (result == null) {
+            List<String> specifications = this.ignore;
+            if (specifications == null) {
+                specifications = Collections.emptyList();
+            }
+
+            result = IgnoreMatcher.forSpecifications(specifications);
+            this.ignoreMatcher = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Record the verdict of the current project in the metrics and the report, if enabled.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session; null if not available.
+     * @param project the current project; null if not available.
+     * @param coordinates coordinates of the current project.
+     * @param verdict verdict of the current project.
+     */
+    private void recordVerdict(EnforcerRuleHelper enforcerRuleHelper, MavenSession session, MavenProject project,
+                               ProjectCoordinates coordinates, Verdict verdict) {
+
+        if ((this.executionMetrics != null) && (verdict.isFailed())) {
+            this.executionMetrics.recordViolation();
+        }
+
+        if ((this.reportFile != null) && (session != null)) {
+            this.reportVerdict(enforcerRuleHelper, session, project, coordinates, verdict);
+        }
+    }
+
+    /**
+     * Append the verdict of the current project to the report of the build, which is finished once every project in
+     * the reactor has recorded its verdict, in whatever order.  Verdicts recorded after that, such as by a later
+     * execution of the enforcer with the same report file, are logged and left out.  Failures to write the report are
+     * logged, and do not fail the build.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @param project the current project; null if not available.
+     * @param coordinates coordinates of the current project.
+     * @param verdict verdict of the current project.
+     */
+    private void reportVerdict(EnforcerRuleHelper enforcerRuleHelper, MavenSession session, MavenProject project,
+                               ProjectCoordinates coordinates, Verdict verdict) {
+
+        String parentGroupId = null;
+        String parentArtifactId = null;
+        File pomFile = null;
+        if (project != null) {
+            pomFile = project.getFile();
+        }
+        if ((project != null) && (project.getModel() != null)) {
+            Parent parent = project.getModel().getParent();
+            if (parent != null) {
+                parentGroupId = parent.getGroupId();
+                parentArtifactId = parent.getArtifactId();
+            }
+        }
+
+        BuildSessionState sessionState = BuildSessionState.get(session);
+        VerdictReport report = sessionState.getVerdictReport(this.reportFile, this.reportFormat);
+
+        String projectId = coordinates.getGroupId() + ":" + coordinates.getArtifactId();
         try {
-            parentArtifactVersion = this.getProperty(enforcerRuleHelper, "project.parentArtifact.version",
-                    "unknown-parent-version-from-pom");
+            if (!report.append(this.findExecutionId(enforcerRuleHelper), coordinates, parentGroupId, parentArtifactId,
+                    pomFile, verdict, System.currentTimeMillis())) {
+                enforcerRuleHelper.getLog().warn("the parent version report " + this.reportFile + " was already " +
+                        "written; it does not include the verdict of " + projectId);
+            }
+
+            if (sessionState.getCountdown("report:" + this.reportFile.getAbsolutePath(), session)
+                    .countDown(projectId)) {
+                finishReport(report, enforcerRuleHelper.getLog());
+            }
+        } catch (IOException ioExc) {
+            enforcerRuleHelper.getLog().warn("unable to write the parent version report to " + this.reportFile, ioExc);
+        }
+    }
+
+    /**
+     * Finish the given report, unless it is already finished.
+     *
+     * @param report the report to finish.
+     * @param log log to which to report the result.
+     * @throws IOException when the report cannot be written.
+     */
+    private static void finishReport(VerdictReport report, Log log) throws IOException {
+        if (report.finish()) {
+            log.info("wrote the parent version report of " + report.getRecords() + " project(s) to " +
+                    report.getFile());
+        }
+    }
+
+    /**
+     * Return the id of the execution of the enforcer running the rule.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @return the execution id, or "default" if it is not available.
+     */
+    private String findExecutionId(EnforcerRuleHelper enforcerRuleHelper) {
+        Object mojoExecution;
+        try {
+            mojoExecution = this.evaluate(enforcerRuleHelper, "${mojoExecution}");
         } catch (ExpressionEvaluationException evalExc) {
-            throw new EnforcerRuleException("unable to determine the version of the parent specified in the pom",
-                    evalExc);
+            mojoExecution = null;
         }
 
+        if ((mojoExecution instanceof MojoExecution) && (((MojoExecution) mojoExecution).getExecutionId() != null)) {
+            return ((MojoExecution) mojoExecution).getExecutionId();
+        }
 
-        //
-        // Verify the project version and the parent version match.
-        //
-        if (!(projectVersion.equals(parentVersion))) {
-            throw new EnforcerRuleException("parent and project version mismatch: project=" +
-                    projectVersion + "; parent=" + parentVersion);
+        return DEFAULT_EXECUTION_ID;
+    }
+
+    /**
+     * Evaluate the given expression, counting the evaluation in the metrics, if enabled.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param expression the expression to evaluate.
+     * @return the value of the expression.
+     * @throws ExpressionEvaluationException when the expression cannot be evaluated.
+     */
+    private Object evaluate(EnforcerRuleHelper enforcerRuleHelper, String expression)
+            throws ExpressionEvaluationException {
+
+        if (this.executionMetrics != null) {
+            this.executionMetrics.recordEvaluation();
         }
 
+        return enforcerRuleHelper.evaluate(expression);
+    }
 
-        //
-        // Also verify the effective parent version for this build is the same as the one specified in the POM.
-        //
-        if (!(parentArtifactVersion.equals(parentVersion))) {
-            throw new EnforcerRuleException("actual parent version does not match the one listed in the pom: " +
-                    "actual parent version=" + parentVersion + "; version from pom=" + parentArtifactVersion);
+    /**
+     * Evaluate the given expression, for a value that is not available in every build, such as the maven session.
+     * Evaluations made before the metrics are found are not counted.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param expression the expression to evaluate.
+     * @return the value of the expression, or null if it cannot be evaluated.
+     */
+    private static Object evaluateIfAvailable(EnforcerRuleHelper enforcerRuleHelper, String expression) {
+        try {
+            return enforcerRuleHelper.evaluate(expression);
+        } catch (ExpressionEvaluationException evalExc) {
+            if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                enforcerRuleHelper.getLog().debug("unable to evaluate " + expression);
+            }
+            return null;
         }
     }
 
-    public boolean isCacheable() {
-        return false;
+    /**
+     * Log the summary of the metrics, and write them to the metrics file if configured, once the rule has executed on
+     * every project in the reactor, in whatever order.  A project that skips the rule holds the summary back.
+     *
+     * @param enforcerRuleHelper enforcer interface to the build.
+     * @param session the maven session.
+     * @param project the current project.
+     */
+    private void reportMetrics(EnforcerRuleHelper enforcerRuleHelper, MavenSession session, MavenProject project) {
+        if (BuildSessionState.get(session).getCountdown("metrics", session)
+                .countDown(project.getGroupId() + ":" + project.getArtifactId())) {
+            writeMetrics(this.executionMetrics, this.metricsFile, enforcerRuleHelper.getLog());
+        }
     }
 
-    public boolean isResultValid(EnforcerRule enforcerRule) {
-        return false;
+    /**
+     * Log the summary of the given metrics, and write them to the metrics file if configured, unless they were already
+     * reported.
+     *
+     * @param metrics the metrics of the build.
+     * @param metricsFile file to which to write the metrics; null to only log the summary.
+     * @param log log to which to write the summary.
+     */
+    private static void writeMetrics(RuleMetrics metrics, File metricsFile, Log log) {
+        if (!metrics.claimReport()) {
+            return;
+        }
+
+        log.info(metrics.toSummary());
+
+        if (metricsFile != null) {
+            try {
+                metrics.writeJson(metricsFile);
+            } catch (IOException ioExc) {
+                log.warn("unable to write the parent version rule metrics to " + metricsFile, ioExc);
+            }
+        }
     }
 
-    public String getCacheId() {
-        return null;
+    /**
+     * Return the portion of the cache id derived from the rule configuration, building it if needed.  The ignore list
+     * is represented by its id, so the size of the cache id does not grow with the ignore list.
+     *
+     * @return the configuration portion of the cache id.
+     */
+    private String getConfigurationCacheId() {
+        String result = this.configurationCacheId;
+        if (result == null) {
+            StringBuilder builder = new StringBuilder();
+
+            builder.append("ignoreMissingParent=").append(this.ignoreMissingParent).append(";ignore=")
+                    .append(this.obtainIgnoreMatcher().getId());
+            if (this.versionPolicy != VersionPolicy.EXACT) {
+                builder.append(";versionPolicy=").append(this.versionPolicy);
+            }
+            if (this.validateAncestors) {
+                builder.append(";validateAncestors=true");
+            }
+            if (this.checkSiblingVersions) {
+                builder.append(";checkSiblingVersions=true");
+            }
+
+            result = builder.toString();
+            this.configurationCacheId = result;
+        }
+
+        return result;
     }
 
     /**
-     * Check whether the artifact being validated is in the ignore list.
+     * Resolve any CI-friendly placeholders (${revision}, ${sha1}, ${changelist}) left in the versions of the given
+     * coordinates.  The placeholders are resolved once per session, from the properties of the build, rather than
+     * evaluating each version again; coordinates without placeholders are returned as-is.
+     *
+     * @param session the maven session; null if not available, in which case the coordinates are returned as-is.
+     * @param coordinates coordinates of the artifact being built.
+     * @return the coordinates with the placeholders resolved.
+     */
+    private ProjectCoordinates resolveCiFriendlyVersions(MavenSession session, ProjectCoordinates coordinates) {
+        if ((session == null) ||
+                ((!CiFriendlyVersions.hasPlaceholder(coordinates.getVersion())) &&
+                (!CiFriendlyVersions.hasPlaceholder(coordinates.getParentVersion())) &&
+                (!CiFriendlyVersions.hasPlaceholder(coordinates.getParentArtifactVersion())))) {
+            return coordinates;
+        }
+
+        return BuildSessionState.get(session).getCiFriendlyVersions(session).resolve(coordinates);
+    }
+
+    /**
+     * Read the coordinates of the artifact being built.  The project model is read directly when available, which
+     * avoids running each coordinate through the expression evaluator; otherwise each one is evaluated on its own.
      *
      * @param enforcerRuleHelper enforcer interface to the build.
-     * @return true => the artifact should be ignored; false => the artifact should be processed normally.
-     * @throws ExpressionEvaluationException - when a problem is encountered evaluating project properties.
+     * @param project the current project; null if not available.
+     * @return the coordinates of the artifact being built.
+     * @throws EnforcerRuleException when a coordinate cannot be evaluated.
      */
-    private boolean checkIgnore(EnforcerRuleHelper enforcerRuleHelper) throws ExpressionEvaluationException {
-        String artifact;
+    private ProjectCoordinates readCoordinates(EnforcerRuleHelper enforcerRuleHelper, MavenProject project)
+            throws EnforcerRuleException {
         String group;
+        String artifact;
+        String projectVersion;
+        String parentVersion;
+        String parentArtifactVersion;
+
+        //
+        // Read the project model directly, if possible.
+        //
+        if (project != null) {
+            return ProjectCoordinates.fromProject(project);
+        }
+
 
         //
         // Determine the group ID and artifact ID for the current artifact being built.
         //
-        artifact = this.getProperty(enforcerRuleHelper, "project.artifact.artifactId", "unknown-artifact");
-        group = this.getProperty(enforcerRuleHelper, "project.artifact.groupId", "unknown-artifact");
+        try {
+            artifact = this.getProperty(enforcerRuleHelper, "project.artifact.artifactId",
+                    ProjectCoordinates.UNKNOWN_ARTIFACT);
+            group = this.getProperty(enforcerRuleHelper, "project.artifact.groupId",
+                    ProjectCoordinates.UNKNOWN_ARTIFACT);
+        } catch (ExpressionEvaluationException evalExc) {
+            throw new EnforcerRuleException("error while checking the ignore list", evalExc);
+        }
 
-        String combined = group + ":" + artifact;
 
-        enforcerRuleHelper.getLog().debug("checking ignore of <group>:<artifact>=" + combined);
+        //
+        // Read the project version.
+        //
+        try {
+            projectVersion = this.getProperty(enforcerRuleHelper, "project.version",
+                    ProjectCoordinates.UNKNOWN_PROJECT_VERSION);
+        } catch (ExpressionEvaluationException evalExc) {
+            throw new EnforcerRuleException("unable to determine the project version", evalExc);
+        }
 
 
         //
-        // Loop over the list of artifacts to ignore and compare against each.
+        // Read the parent project version - the effective one in-use for this build.
         //
-        for (String toIgnore : this.ignore) {
-            enforcerRuleHelper.getLog().debug("checking ignore of " + combined + " against " + toIgnore);
+        try {
+            parentVersion = this.getProperty(enforcerRuleHelper, "project.parent.version",
+                    ProjectCoordinates.UNKNOWN_PARENT_VERSION);
+        } catch (ExpressionEvaluationException evalExc) {
+            throw new EnforcerRuleException("unable to determine the parent version", evalExc);
+        }
 
-            //
-            // Check if the ignore specification is in <group>:<artifact> format, or just <artifact> format.
-            //
-            if (toIgnore.contains(":")) {
-                if (toIgnore.equals(combined)) {
-                    return true;
-                }
-            } else {
-                if (toIgnore.equals(artifact)) {
-                    return true;
-                }
-            }
+
+        //
+        // Read the parent version from the POM.
+        //
+        try {
+            parentArtifactVersion = this.getProperty(enforcerRuleHelper, "project.parentArtifact.version",
+                    ProjectCoordinates.UNKNOWN_PARENT_VERSION_FROM_POM);
+        } catch (ExpressionEvaluationException evalExc) {
+            throw new EnforcerRuleException("unable to determine the version of the parent specified in the pom",
+                    evalExc);
         }
 
-        return false;
+        return new ProjectCoordinates(group, artifact, projectVersion, parentVersion, parentArtifactVersion);
     }
 
     /**
@@ -231,18 +1262,74 @@ public class ParentVersionRule implements EnforcerRule {
         //
         // Evaluate the property.
         //
-        propValue = enforcerRuleHelper.evaluate("${" + name + "}");
+        propValue = this.evaluate(enforcerRuleHelper, "${" + name + "}");
         if (propValue != null) {
             // Found it; return it as a string.
             result = propValue.toString();
-            enforcerRuleHelper.getLog().debug("property '" + name + "='" + result + "'");
+            if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                enforcerRuleHelper.getLog().debug("property '" + name + "='" + result + "'");
+            }
         } else {
             // Not found; return the default value.
             result = defaultValue;
-            enforcerRuleHelper.getLog().debug("property '" + name + "' not found; using default value '" +
-                    defaultValue + "'");
+            if (enforcerRuleHelper.getLog().isDebugEnabled()) {
+                enforcerRuleHelper.getLog().debug("property '" + name + "' not found; using default value '" +
+                        defaultValue + "'");
+            }
         }
 
         return result;
     }
+
+    /**
+     * Key of a cached verdict: the configuration cache id of the rule, and the coordinates of the project.
+     */
+    private static class VerdictKey {
+
+        private final String configurationId;
+        private final ProjectCoordinates coordinates;
+
+        public VerdictKey(String configurationId, ProjectCoordinates coordinates) {
+            this.configurationId = configurationId;
+            this.coordinates = coordinates;
+        }
+
+        /**
+         * Estimate the memory used by the key, in bytes.
+         *
+         * @return the estimated size.
+         */
+        public long weigh() {
+            return 48 + BoundedCache.weighString(this.configurationId) +
+                    BoundedCache.weighString(this.coordinates.getGroupId()) +
+                    BoundedCache.weighString(this.coordinates.getArtifactId()) +
+                    BoundedCache.weighString(this.coordinates.getVersion()) +
+                    BoundedCache.weighString(this.coordinates.getParentVersion()) +
+                    BoundedCache.weighString(this.coordinates.getParentArtifactVersion());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof VerdictKey)) {
+                return false;
+            }
+
+            return (this.coordinates.equals(((VerdictKey) other).coordinates)) &&
+                    (this.configurationId.equals(((VerdictKey) other).configurationId));
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.configurationId.hashCode()) + this.coordinates.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.configurationId + ";project=" + this.coordinates;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.util.Arrays;
+
+/**
+ * Version string parsed into its leading numeric components and the remaining qualifier; e.g. 1.2.3-SNAPSHOT parses
+ * into the components [1, 2, 3] and the qualifier SNAPSHOT.  Components and qualifier are separated by '.' or '-'.
+ * Trailing zero components are dropped, so 1.0 and 1.0.0 parse the same.
+ *
+ * Each distinct version string is only parsed once while it remains in the bounded cache; parsed versions are
+ * immutable and shared, so comparing them does not allocate.
+ */
+public class ParsedVersion {
+
+    private static final int[] NO_COMPONENTS = new int[0];
+
+    /**
+     * Parsed versions, keyed by version string; bounded to an eighth of the memory allowed for the caches of the rule.
+     */
+    private static final BoundedCache<String, ParsedVersion> parsedVersions =
+            new BoundedCache<>(0.125, new BoundedCache.Weigher<String, ParsedVersion>() {
+                @Override
+                public long weigh(String key, ParsedVersion value) {
+                    return BoundedCache.weighString(key) + 32 + (4L * value.components.length) +
+                            BoundedCache.weighString(value.qualifier);
+                }
+            });
+
+    private final int[] components;
+    private final String qualifier;
+
+    private ParsedVersion(int[] components, String qualifier) {
+        this.components = components;
+        this.qualifier = qualifier;
+    }
+
+    /**
+     * Return the parsed form of the given version, parsing it on first use.
+     *
+     * @param version the version string.
+     * @return the parsed version.
+     */
+    public static ParsedVersion of(String version) {
+        ParsedVersion result = parsedVersions.get(version);
+
+        if (result == null) {
+            result = parse(version);
+
+            ParsedVersion existing = parsedVersions.putIfAbsent(version, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    private static ParsedVersion parse(String version) {
+        int[] components = new int[version.length()];
+        int count = 0;
+        int pos = 0;
+
+        while (pos < version.length()) {
+            int end = pos;
+            int value = 0;
+            while ((end < version.length()) && (Character.isDigit(version.charAt(end))) && (value < 100000000)) {
+                value = (value * 10) + Character.digit(version.charAt(end), 10);
+                end++;
+            }
+
+            // Stop at the first token that is not entirely numeric; it and the rest of the version are the qualifier.
+            boolean atSeparator = ((end == version.length()) || (version.charAt(end) == '.') ||
+                    (version.charAt(end) == '-'));
+            if ((end == pos) || (!atSeparator)) {
+                break;
+            }
+
+            components[count++] = value;
+            pos = end + 1;
+        }
+
+        while ((count > 0) && (components[count - 1] == 0)) {
+            count--;
+        }
+
+        String qualifier = "";
+        if (pos < version.length()) {
+            qualifier = version.substring(pos).toLowerCase().intern();
+        }
+
+        if ((count == 0) && (pos == 0)) {
+            return new ParsedVersion(NO_COMPONENTS, qualifier);
+        }
+
+        return new ParsedVersion(Arrays.copyOf(components, count), qualifier);
+    }
+
+    /**
+     * Determine whether the version has any numeric components, including zero components.  Versions without any
+     * can only be compared as strings.
+     *
+     * @return true => the version starts with a number; false => it does not.
+     */
+    public boolean isNumeric() {
+        return this.components != NO_COMPONENTS;
+    }
+
+    /**
+     * Return the numeric component at the given index, or zero if the version has fewer components.
+     *
+     * @param index index of the component, starting from zero for the major version.
+     * @return the component.
+     */
+    public int getComponent(int index) {
+        if (index < this.components.length) {
+            return this.components[index];
+        }
+
+        return 0;
+    }
+
+    /**
+     * Determine whether the numeric components of this version equal those of the given one.
+     *
+     * @param other the other version.
+     * @return true => the numeric components are equal; false => they differ.
+     */
+    public boolean componentsEqual(ParsedVersion other) {
+        return Arrays.equals(this.components, other.components);
+    }
+
+    /**
+     * Return the qualifier, in lower case, or the empty string if there is none.
+     *
+     * @return the qualifier.
+     */
+    public String getQualifier() {
+        return qualifier;
+    }
+}
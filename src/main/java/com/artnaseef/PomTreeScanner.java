@@ -0,0 +1,592 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validation of the parent versions of a multi-module tree of POMs, without starting Maven, for uses such as
+ * pre-commit hooks.  The POM in the given directory is read, and then the POMs of its modules, recursively, following
+ * the &lt;modules&gt; of each POM, so copies of POMs elsewhere in the tree, such as under src/it or target, are not
+ * read.  Only the coordinates of each project, its parent and its modules are read, using a streaming parser, and the
+ * POMs of each level of modules are parsed in parallel.  The projects found are then validated together, exactly as
+ * with reactor validation, so a parent found in the tree supplies the effective parent version.
+ *
+ * <pre>
+ *     java -cp ... com.artnaseef.PomTreeScanner [--ignore &lt;spec&gt;[,&lt;spec&gt;...]] [--no-ignore-missing-parent]
+ *         [--check-parent-resolvable [--local-repository &lt;directory&gt;]] [--fix | --watch] &lt;directory&gt;
+ * </pre>
+ *
+ * The scanner uses the project model of Maven, so the classpath needs maven-core and maven-plugin-api, with their
+ * dependencies, along with the rule jar and enforcer-api; the rule declares the Maven artifacts as provided, so they
+ * are not pulled in with it.
+ *
+ * With --check-parent-resolvable, a POM whose parent is not in the tree also fails when the POM of the parent is not
+ * in the local repository, as listed by {@link LocalRepositoryIndex}; no repository is consulted.  The local
+ * repository is the one given, or else the one set with the maven.repo.local system property, or else the default
+ * in the user's home directory.
+ *
+ * With --fix, the parent version of each failing POM is rewritten in place using the versions found in the tree, as
+ * by {@link ParentVersionFixer}.  With --watch, the tree is validated again each time POMs change, as by
+ * {@link PomTreeWatcher}, until the process is stopped.
+ *
+ * run() returns 0 when all POMs pass, or all failing POMs were fixed; 1 when any fails; and 2 on a usage or read
+ * error.  main() does not exit the JVM, so it can also run inside another one, such as with exec:java; it throws an
+ * exception on a failure, which ends a standalone JVM with exit code 1.
+ */
+public class PomTreeScanner {
+
+    public static final String POM_FILE_NAME = "pom.xml";
+
+    /**
+     * Maximum number of POMs parsed by a single fork-join task.
+     */
+    static final int PARSE_BATCH_SIZE = 32;
+
+    private final ForkJoinPool pool;
+
+    public PomTreeScanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws EnforcerRuleException {
+        switch (run(args, new SystemStreamLog())) {
+            case 0:
+                break;
+
+            case 1:
+                throw new EnforcerRuleException("parent version violations found; see the errors above");
+
+            default:
+                throw new EnforcerRuleException("unable to validate the poms; see the errors above");
+        }
+    }
+
+    /**
+     * Run the scanner with the given command-line arguments.
+     *
+     * @param args command-line arguments.
+     * @param log log to which results are reported.
+     * @return the exit code.
+     */
+    static int run(String[] args, Log log) {
+        ParentVersionRule rule = new ParentVersionRule();
+        File directory = null;
+        boolean checkParentResolvable = false;
+        File localRepository = null;
+        boolean fix = false;
+        boolean watch = false;
+
+        for (int index = 0; index < args.length; index++) {
+            if (("--ignore".equals(args[index])) && (index + 1 < args.length)) {
+                index++;
+                rule.setIgnore(Arrays.asList(args[index].split(",")));
+            } else if ("--no-ignore-missing-parent".equals(args[index])) {
+                rule.setIgnoreMissingParent(false);
+            } else if ("--check-parent-resolvable".equals(args[index])) {
+                checkParentResolvable = true;
+            } else if (("--local-repository".equals(args[index])) && (index + 1 < args.length)) {
+                index++;
+                localRepository = new File(args[index]);
+            } else if ("--fix".equals(args[index])) {
+                fix = true;
+            } else if ("--watch".equals(args[index])) {
+                watch = true;
+            } else if ((directory == null) && (!args[index].startsWith("--"))) {
+                directory = new File(args[index]);
+            } else {
+                directory = null;
+                break;
+            }
+        }
+
+        if ((directory == null) || (!directory.isDirectory()) || ((fix) && (watch)) ||
+                ((localRepository != null) && (!checkParentResolvable)) || ((checkParentResolvable) && (watch))) {
+            log.error("usage: PomTreeScanner [--ignore <spec>[,<spec>...]] [--no-ignore-missing-parent] " +
+                    "[--check-parent-resolvable [--local-repository <directory>]] [--fix | --watch] <directory>");
+            return 2;
+        }
+
+        if (watch) {
+            return watch(directory, rule, log);
+        }
+
+        List<MavenProject> projects;
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            projects = new PomTreeScanner(pool).scan(directory);
+        } catch (IOException ioExc) {
+            log.error("failed to read the poms under " + directory, ioExc);
+            return 2;
+        } finally {
+            pool.shutdown();
+        }
+
+        CiFriendlyVersions versions;
+        try {
+            versions = CiFriendlyVersions.fromProperties(readCiFriendlyProperties(new File(directory, POM_FILE_NAME)),
+                    System.getProperties());
+        } catch (IOException ioExc) {
+            log.error("failed to read the properties of the root pom under " + directory, ioExc);
+            return 2;
+        }
+
+        ReactorValidation validation = ReactorValidation.validate(rule, projects, versions, log);
+
+        LocalRepositoryIndex repositoryIndex = null;
+        if (checkParentResolvable) {
+            if (localRepository == null) {
+                localRepository = findLocalRepository();
+            }
+            repositoryIndex = new LocalRepositoryIndex(localRepository);
+        }
+
+        int failures = 0;
+        for (MavenProject project : projects) {
+            Verdict verdict = validation.getVerdict(project);
+            if ((repositoryIndex != null) && (!verdict.isFailed()) && (verdict != Verdict.IGNORED)) {
+                Verdict resolvableVerdict = checkParentResolvable(validation, project, repositoryIndex);
+                if (resolvableVerdict != null) {
+                    verdict = resolvableVerdict;
+                }
+            }
+
+            if (verdict.isFailed()) {
+                failures++;
+                log.error(project.getFile() + ": " + verdict.getReason());
+            }
+        }
+
+        log.info("validated " + projects.size() + " poms; " + failures + " failed");
+
+        if ((fix) && (failures > 0)) {
+            int fixed = ParentVersionFixer.fixReactor(projects, validation, versions, log);
+            log.info("fixed " + fixed + " of " + failures + " failed poms");
+
+            failures -= fixed;
+        }
+
+        if (failures > 0) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Check that the parent of the given project is either in the tree, or present in the local repository.  Parents
+     * with a version that is an expression are not checked.
+     *
+     * @param validation validation of the whole tree.
+     * @param project the project.
+     * @param repositoryIndex index of the local repository.
+     * @return a failed verdict if the parent is neither in the tree nor in the local repository; null otherwise.
+     */
+    static Verdict checkParentResolvable(ReactorValidation validation, MavenProject project,
+                                         LocalRepositoryIndex repositoryIndex) {
+        Parent parent = project.getModel().getParent();
+        if ((parent == null) || (parent.getVersion() == null) ||
+                (CiFriendlyVersions.hasPlaceholder(parent.getVersion()))) {
+            return null;
+        }
+
+        if (validation.getReactorVersion(parent.getGroupId(), parent.getArtifactId()) != null) {
+            return null;
+        }
+
+        if (repositoryIndex.contains(parent.getGroupId(), parent.getArtifactId(), parent.getVersion())) {
+            return null;
+        }
+
+        return Verdict.failed("parent " + parent.getGroupId() + ":" + parent.getArtifactId() + ":" +
+                parent.getVersion() + " is not in the tree, and not in the local repository " +
+                repositoryIndex.getDirectory());
+    }
+
+    /**
+     * Return the local repository of the user: the one set with the maven.repo.local system property, if any;
+     * otherwise the default location in the user's home directory.
+     *
+     * @return the local repository directory.
+     */
+    private static File findLocalRepository() {
+        String localRepository = System.getProperty("maven.repo.local");
+        if (localRepository != null) {
+            return new File(localRepository);
+        }
+
+        return new File(new File(System.getProperty("user.home"), ".m2"), "repository");
+    }
+
+    /**
+     * Watch the given tree, validating it again each time POMs change, until the thread is interrupted.
+     *
+     * @param directory root of the tree to watch.
+     * @param rule the rule, the configuration of which applies to the validation.
+     * @param log log to which results are reported.
+     * @return the exit code.
+     */
+    private static int watch(File directory, ParentVersionRule rule, Log log) {
+        ForkJoinPool pool = new ForkJoinPool();
+        try (PomTreeWatcher watcher = new PomTreeWatcher(directory, rule, pool, log,
+                PomTreeWatcher.DEFAULT_DEBOUNCE_MILLIS)) {
+            watcher.start();
+            log.info("watching the poms under " + directory);
+            watcher.watch();
+        } catch (IOException ioExc) {
+            log.error("failed to watch the poms under " + directory, ioExc);
+            return 2;
+        } catch (InterruptedException interruptedExc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Parse the POM in the given directory, and the POMs of all of its modules, recursively.  Only the &lt;modules&gt;
+     * of each POM are followed, not those of its profiles.  A module POM reached more than once is only read once.
+     *
+     * @param directory directory holding the top-level POM.
+     * @return the projects found, each with its POM file set, level by level, in the order the modules are listed.
+     * @throws IOException when a POM, including the POM of a listed module, cannot be found, read or parsed.
+     */
+    public List<MavenProject> scan(File directory) throws IOException {
+        File rootPomFile = new File(directory, POM_FILE_NAME);
+        if (!rootPomFile.isFile()) {
+            throw new IOException("no " + POM_FILE_NAME + " in " + directory);
+        }
+
+        List<MavenProject> result = new ArrayList<>();
+        Set<File> found = new HashSet<>();
+        found.add(normalize(rootPomFile));
+
+        List<File> level = Collections.singletonList(rootPomFile);
+        while (!level.isEmpty()) {
+            ParseTask task = new ParseTask(level, 0, level.size());
+            List<MavenProject> projects = this.pool.invoke(task);
+
+            if (task.failure != null) {
+                throw task.failure;
+            }
+
+            result.addAll(projects);
+
+            List<File> nextLevel = new ArrayList<>();
+            for (MavenProject project : projects) {
+                for (File modulePomFile : findModulePomFiles(project)) {
+                    if (!modulePomFile.isFile()) {
+                        throw new IOException("the pom of a module listed by " + project.getFile() +
+                                " does not exist: " + modulePomFile);
+                    }
+
+                    if (found.add(modulePomFile)) {
+                        nextLevel.add(modulePomFile);
+                    }
+                }
+            }
+
+            level = nextLevel;
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the POM files of the modules listed by the given project.  Each module is either a directory holding a
+     * pom.xml, or the path of a POM file, relative to the directory of the project's POM.
+     *
+     * @param project the project, with its POM file set.
+     * @return the absolute, normalized POM files of the modules, in the order listed; some may not exist.
+     */
+    static List<File> findModulePomFiles(MavenProject project) {
+        List<String> modules = project.getModel().getModules();
+        if (modules.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        File baseDirectory = project.getFile().getAbsoluteFile().getParentFile();
+        List<File> result = new ArrayList<>(modules.size());
+        for (String module : modules) {
+            File modulePomFile = new File(baseDirectory, module);
+            if (modulePomFile.isDirectory()) {
+                modulePomFile = new File(modulePomFile, POM_FILE_NAME);
+            }
+
+            result.add(normalize(modulePomFile));
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the absolute, normalized form of the given file.
+     *
+     * @param file the file.
+     * @return the normalized file.
+     */
+    static File normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+    /**
+     * Determine whether the given directory is skipped when watching for changes to POMs: build output and hidden
+     * directories.
+     *
+     * @param directory the directory.
+     * @return true => the directory, and everything under it, is skipped; false => it is watched.
+     */
+    static boolean isSkippedDirectory(Path directory) {
+        String name = directory.getFileName().toString();
+
+        return (name.startsWith(".")) || ("target".equals(name));
+    }
+
+    /**
+     * Read the coordinates of the project, of its parent, and its modules, from the given POM.
+     *
+     * @param factory factory for the streaming parser.
+     * @param pomFile the POM file.
+     * @return the project, with only its coordinates, parent, modules and file set.
+     * @throws IOException when the POM cannot be read or parsed.
+     */
+    static MavenProject parse(XMLInputFactory factory, File pomFile) throws IOException {
+        Model model = new Model();
+        Parent parent = null;
+
+        try (InputStream input = Files.newInputStream(pomFile.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            try {
+                int depth = 0;
+                boolean inParent = false;
+                boolean inModules = false;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+
+                        if (depth == 2) {
+                            if ("parent".equals(name)) {
+                                inParent = true;
+                                parent = new Parent();
+                            } else if ("modules".equals(name)) {
+                                inModules = true;
+                            } else if ("groupId".equals(name)) {
+                                model.setGroupId(reader.getElementText().trim());
+                                depth--;
+                            } else if ("artifactId".equals(name)) {
+                                model.setArtifactId(reader.getElementText().trim());
+                                depth--;
+                            } else if ("version".equals(name)) {
+                                model.setVersion(reader.getElementText().trim());
+                                depth--;
+                            }
+                        } else if ((depth == 3) && (inParent)) {
+                            if ("groupId".equals(name)) {
+                                parent.setGroupId(reader.getElementText().trim());
+                                depth--;
+                            } else if ("artifactId".equals(name)) {
+                                parent.setArtifactId(reader.getElementText().trim());
+                                depth--;
+                            } else if ("version".equals(name)) {
+                                parent.setVersion(reader.getElementText().trim());
+                                depth--;
+                            }
+                        } else if ((depth == 3) && (inModules) && ("module".equals(name))) {
+                            model.addModule(reader.getElementText().trim());
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == 2) {
+                            inParent = false;
+                            inModules = false;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException xmlExc) {
+            throw new IOException("failed to parse " + pomFile, xmlExc);
+        }
+
+        model.setParent(parent);
+
+        MavenProject result = new MavenProject(model);
+        result.setFile(pomFile);
+
+        return result;
+    }
+
+    /**
+     * Read the CI-friendly version properties (revision, sha1 and changelist) defined by the given POM.
+     *
+     * @param pomFile the POM file.
+     * @return the properties found; empty if the POM does not exist.
+     * @throws IOException when the POM cannot be read or parsed.
+     */
+    static Properties readCiFriendlyProperties(File pomFile) throws IOException {
+        Properties result = new Properties();
+        if (!pomFile.isFile()) {
+            return result;
+        }
+
+        List<String> names = Arrays.asList(CiFriendlyVersions.PROPERTY_NAMES);
+
+        try (InputStream input = Files.newInputStream(pomFile.toPath())) {
+            XMLStreamReader reader = createInputFactory().createXMLStreamReader(input);
+            try {
+                int depth = 0;
+                boolean inProperties = false;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+
+                        if ((depth == 2) && ("properties".equals(name))) {
+                            inProperties = true;
+                        } else if ((depth == 3) && (inProperties) && (names.contains(name))) {
+                            result.setProperty(name, reader.getElementText().trim());
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if ((depth == 2) && (inProperties)) {
+                            break;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException xmlExc) {
+            throw new IOException("failed to parse " + pomFile, xmlExc);
+        }
+
+        return result;
+    }
+
+    static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return factory;
+    }
+
+    /**
+     * Task that parses a range of POM files, splitting the range until it is small enough to parse directly.  The
+     * first failure is recorded on the task, and the results are combined in the original order.
+     */
+    private static class ParseTask extends RecursiveTask<List<MavenProject>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> pomFiles;
+        private final int start;
+        private final int end;
+
+        private IOException failure;
+
+        public ParseTask(List<File> pomFiles, int start, int end) {
+            this.pomFiles = pomFiles;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<MavenProject> compute() {
+            if (this.end - this.start <= PARSE_BATCH_SIZE) {
+                return this.parseRange();
+            }
+
+            int middle = (this.start + this.end) >>> 1;
+            ParseTask first = new ParseTask(this.pomFiles, this.start, middle);
+            ParseTask second = new ParseTask(this.pomFiles, middle, this.end);
+
+            first.fork();
+            List<MavenProject> secondResult = second.compute();
+            List<MavenProject> firstResult = first.join();
+
+            if (first.failure != null) {
+                this.failure = first.failure;
+            } else if (second.failure != null) {
+                this.failure = second.failure;
+            }
+
+            List<MavenProject> result = new ArrayList<>(firstResult.size() + secondResult.size());
+            result.addAll(firstResult);
+            result.addAll(secondResult);
+
+            return result;
+        }
+
+        private List<MavenProject> parseRange() {
+            XMLInputFactory factory = createInputFactory();
+            List<MavenProject> result = new ArrayList<>(this.end - this.start);
+
+            try {
+                for (int index = this.start; index < this.end; index++) {
+                    result.add(parse(factory, this.pomFiles.get(index)));
+                }
+            } catch (IOException ioExc) {
+                this.failure = ioExc;
+                return Collections.emptyList();
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running validation of the parent versions of a multi-module tree of POMs, for use while editing many POMs,
+ * e.g. during a version bump.  After the initial scan, a watch service on the tree reports the POMs that change; only
+ * those are parsed again, in parallel, and the reactor is revalidated from the coordinates already in memory, so the
+ * in-tree children of a changed POM pick up its new version without being parsed.  Events are debounced: a batch is
+ * processed once the tree has been quiet for the debounce interval, so bulk edits are validated together.
+ *
+ * Every POM in the watched directories is parsed, so a module added to the &lt;modules&gt; of a POM is already known,
+ * but only the POMs reached from the top-level POM through the &lt;modules&gt; of each POM are validated, as with
+ * {@link PomTreeScanner}.
+ *
+ * The current violations are available at any time, and the changes to them are logged after each batch.
+ */
+public class PomTreeWatcher implements Closeable {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    private final File directory;
+    private final ParentVersionRule rule;
+    private final ExecutorService executor;
+    private final Log log;
+    private final long debounceMillis;
+
+    private final WatchService watchService;
+
+    /**
+     * Directory watched by each key.
+     */
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    /**
+     * Projects, keyed by POM file, in the order found.
+     */
+    private final Map<File, MavenProject> projects = new LinkedHashMap<>();
+
+    /**
+     * Reason each POM that cannot be parsed failed to parse, keyed by POM file.
+     */
+    private final Map<File, String> parseFailures = new LinkedHashMap<>();
+
+    private CiFriendlyVersions versions = CiFriendlyVersions.NONE;
+
+    /**
+     * Current violations, keyed by POM file; replaced as a whole after each batch.
+     */
+    private volatile Map<File, String> violations = Collections.emptyMap();
+
+    /**
+     * Create the watcher; call start() to scan the tree and begin watching it.
+     *
+     * @param directory root of the tree to watch.
+     * @param rule the rule, the configuration of which applies to the validation.
+     * @param executor executor on which to parse the POMs.
+     * @param log log to which the violations are reported.
+     * @param debounceMillis time the tree must be quiet before a batch of changes is processed.
+     * @throws IOException when the watch service cannot be created.
+     */
+    public PomTreeWatcher(File directory, ParentVersionRule rule, ExecutorService executor, Log log,
+                          long debounceMillis) throws IOException {
+        this.directory = PomTreeScanner.normalize(directory);
+        this.rule = rule;
+        this.executor = executor;
+        this.log = log;
+        this.debounceMillis = debounceMillis;
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Register the tree with the watch service, then parse and validate all of its POMs.
+     *
+     * @throws IOException when the tree cannot be walked, or the root POM properties cannot be read.
+     */
+    public void start() throws IOException {
+        Set<Path> pomFiles = this.register(this.directory.toPath());
+        this.versions = this.readVersions();
+        this.parse(pomFiles);
+        this.revalidate(System.nanoTime());
+    }
+
+    /**
+     * Process batches of changes until the watcher is closed, or the thread is interrupted.
+     *
+     * @throws InterruptedException when the thread is interrupted.
+     * @throws IOException when the tree cannot be walked.
+     */
+    public void watch() throws InterruptedException, IOException {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = this.collect(this.watchService.take(), changed);
+
+                WatchKey key = this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    overflow |= this.collect(key, changed);
+                    key = this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+                }
+
+                if (overflow) {
+                    this.log.info("too many changes to track; rescanning " + this.directory);
+                    this.projects.clear();
+                    this.parseFailures.clear();
+                    changed.add(this.directory.toPath());
+                }
+
+                this.update(changed);
+            }
+        } catch (ClosedWatchServiceException closedExc) {
+            // Closed; stop watching.
+        }
+    }
+
+    /**
+     * Return the current violations.
+     *
+     * @return the reason of each violation, keyed by POM file, in the order the POMs were found.
+     */
+    public Map<File, String> getViolations() {
+        return this.violations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+
+    /**
+     * Apply a batch of changed paths, and revalidate the tree.  A changed POM is parsed again, or dropped when it no
+     * longer exists; a changed directory is registered and searched for POMs, or all of the POMs under it dropped when
+     * it no longer exists.
+     *
+     * @param changed the changed paths.
+     * @throws IOException when the tree cannot be walked.
+     */
+    void update(Set<Path> changed) throws IOException {
+        long started = System.nanoTime();
+        Set<Path> pomFiles = new LinkedHashSet<>();
+
+        for (Path path : changed) {
+            if (PomTreeScanner.POM_FILE_NAME.equals(path.getFileName().toString())) {
+                if (Files.isRegularFile(path)) {
+                    pomFiles.add(path);
+                } else {
+                    this.drop(path);
+                }
+            } else if (Files.isDirectory(path)) {
+                pomFiles.addAll(this.register(path));
+            } else {
+                this.drop(path);
+            }
+        }
+
+        if (pomFiles.contains(new File(this.directory, PomTreeScanner.POM_FILE_NAME).toPath())) {
+            try {
+                this.versions = this.readVersions();
+            } catch (IOException ioExc) {
+                // Keep the previous properties; the root POM is reported as failing to parse.
+                if (this.log.isDebugEnabled()) {
+                    this.log.debug("unable to read the properties of the root pom; keeping the previous ones");
+                }
+            }
+        }
+
+        this.parse(pomFiles);
+        this.revalidate(started);
+    }
+
+    /**
+     * Collect the paths changed according to the events of the given key, and reset the key.
+     *
+     * @return true => events were lost, so the whole tree needs to be scanned again; false => otherwise.
+     */
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        Path watched = this.watchedDirectories.get(key);
+        boolean overflow = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (watched != null) {
+                Path path = watched.resolve((Path) event.context());
+
+                //
+                // Track every change to a POM, and every deletion, which may be of a directory holding POMs; of the
+                //  other changes, only new directories matter, since they need to be watched and searched.
+                //
+                if ((PomTreeScanner.POM_FILE_NAME.equals(path.getFileName().toString())) ||
+                        (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)) {
+                    changed.add(path);
+                } else if ((event.kind() == StandardWatchEventKinds.ENTRY_CREATE) && (Files.isDirectory(path)) &&
+                        (!PomTreeScanner.isSkippedDirectory(path))) {
+                    changed.add(path);
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            this.watchedDirectories.remove(key);
+        }
+
+        return overflow;
+    }
+
+    /**
+     * Register the given directory, and all of the directories under it that are searched for POMs, with the watch
+     * service.
+     *
+     * @return the POM files found.
+     */
+    private Set<Path> register(final Path root) throws IOException {
+        final Set<Path> result = new LinkedHashSet<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if ((!dir.equals(directory.toPath())) && (PomTreeScanner.isSkippedDirectory(dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if ((attrs.isRegularFile()) && (PomTreeScanner.POM_FILE_NAME.equals(file.getFileName().toString()))) {
+                    result.add(file);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Drop the projects of the given POM, or of all the POMs under the given directory.
+     */
+    private void drop(Path path) {
+        Iterator<File> projectIterator = this.projects.keySet().iterator();
+        while (projectIterator.hasNext()) {
+            if (projectIterator.next().toPath().startsWith(path)) {
+                projectIterator.remove();
+            }
+        }
+
+        Iterator<File> failureIterator = this.parseFailures.keySet().iterator();
+        while (failureIterator.hasNext()) {
+            if (failureIterator.next().toPath().startsWith(path)) {
+                failureIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Parse the given POMs in parallel batches, replacing their projects.  A POM that cannot be parsed, such as one
+     * saved half way through an edit, is reported as a violation until it is fixed.
+     */
+    private void parse(Set<Path> pomFiles) throws IOException {
+        final List<File> files = new ArrayList<>(pomFiles.size());
+        for (Path pomFile : pomFiles) {
+            files.add(pomFile.toFile());
+        }
+
+        List<Future<Map<File, Object>>> batches = new ArrayList<>();
+        for (int start = 0; start < files.size(); start += PomTreeScanner.PARSE_BATCH_SIZE) {
+            final List<File> batch = files.subList(start, Math.min(start + PomTreeScanner.PARSE_BATCH_SIZE,
+                    files.size()));
+
+            batches.add(this.executor.submit(new Callable<Map<File, Object>>() {
+                @Override
+                public Map<File, Object> call() {
+                    XMLInputFactory factory = PomTreeScanner.createInputFactory();
+                    Map<File, Object> result = new LinkedHashMap<>();
+
+                    for (File pomFile : batch) {
+                        try {
+                            result.put(pomFile, PomTreeScanner.parse(factory, pomFile));
+                        } catch (IOException ioExc) {
+                            result.put(pomFile, describe(ioExc));
+                        }
+                    }
+
+                    return result;
+                }
+            }));
+        }
+
+        for (Future<Map<File, Object>> batch : batches) {
+            Map<File, Object> parsed;
+            try {
+                parsed = batch.get();
+            } catch (InterruptedException interruptedExc) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while parsing the poms", interruptedExc);
+            } catch (ExecutionException executionExc) {
+                throw new IOException("failed to parse the poms", executionExc.getCause());
+            }
+
+            for (Map.Entry<File, Object> entry : parsed.entrySet()) {
+                if (entry.getValue() instanceof MavenProject) {
+                    this.projects.put(entry.getKey(), (MavenProject) entry.getValue());
+                    this.parseFailures.remove(entry.getKey());
+                } else {
+                    this.projects.remove(entry.getKey());
+                    this.parseFailures.put(entry.getKey(), (String) entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate the projects of the module tree, and log the changes in the violations.
+     */
+    private void revalidate(long started) {
+        Map<File, String> current = new LinkedHashMap<>();
+        List<MavenProject> projectList = this.findModuleTree(current);
+        ReactorValidation validation = ReactorValidation.validate(this.rule, projectList, this.versions, this.log);
+
+        for (MavenProject project : projectList) {
+            Verdict verdict = validation.getVerdict(project);
+            if (verdict.isFailed()) {
+                current.put(project.getFile(), verdict.getReason());
+            }
+        }
+
+        Map<File, String> previous = this.violations;
+        for (Map.Entry<File, String> violation : current.entrySet()) {
+            if (!violation.getValue().equals(previous.get(violation.getKey()))) {
+                this.log.error(violation.getKey() + ": " + violation.getValue());
+            }
+        }
+        for (File pomFile : previous.keySet()) {
+            if (!current.containsKey(pomFile)) {
+                this.log.info(pomFile + ": fixed");
+            }
+        }
+
+        this.violations = Collections.unmodifiableMap(current);
+
+        this.log.info("validated " + projectList.size() + " poms in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms; " + current.size() + " failed");
+    }
+
+    /**
+     * Find the projects reached from the top-level POM through the &lt;modules&gt; of each POM, in the order found.
+     * POMs of the tree that cannot be parsed, and modules without a POM, are added to the given violations.
+     *
+     * @param violations violations, keyed by POM file, to which to add those of the tree.
+     * @return the projects of the module tree.
+     */
+    private List<MavenProject> findModuleTree(Map<File, String> violations) {
+        List<MavenProject> result = new ArrayList<>();
+        Set<File> found = new HashSet<>();
+        List<File> pending = new ArrayList<>();
+
+        File rootPomFile = new File(this.directory, PomTreeScanner.POM_FILE_NAME);
+        found.add(rootPomFile);
+        pending.add(rootPomFile);
+
+        for (int index = 0; index < pending.size(); index++) {
+            File pomFile = pending.get(index);
+
+            MavenProject project = this.projects.get(pomFile);
+            if (project == null) {
+                if (this.parseFailures.containsKey(pomFile)) {
+                    violations.put(pomFile, this.parseFailures.get(pomFile));
+                } else if (!pomFile.isFile()) {
+                    violations.put(pomFile, "the pom of a listed module does not exist");
+                }
+                continue;
+            }
+
+            result.add(project);
+            for (File modulePomFile : PomTreeScanner.findModulePomFiles(project)) {
+                if (found.add(modulePomFile)) {
+                    pending.add(modulePomFile);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private CiFriendlyVersions readVersions() throws IOException {
+        return CiFriendlyVersions.fromProperties(PomTreeScanner.readCiFriendlyProperties(new File(this.directory,
+                PomTreeScanner.POM_FILE_NAME)), System.getProperties());
+    }
+
+    private static String describe(IOException ioExc) {
+        Throwable cause = ioExc;
+        if (ioExc.getCause() != null) {
+            cause = ioExc.getCause();
+        }
+
+        return "unable to parse the pom: " + cause.getMessage();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The coordinates of a project that are needed to validate it against its parent.  Values which are not defined are
+ * replaced with the same placeholder defaults the rule has always used, so they never match a real version.
+ */
+public class ProjectCoordinates {
+
+    public static final String UNKNOWN_ARTIFACT = "unknown-artifact";
+    public static final String UNKNOWN_PROJECT_VERSION = "unknown-project-version";
+    public static final String UNKNOWN_PARENT_VERSION = "unknown-project-parent-version";
+    public static final String UNKNOWN_PARENT_VERSION_FROM_POM = "unknown-parent-version-from-pom";
+
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final String parentVersion;
+    private final String parentArtifactVersion;
+
+    /**
+     * Create the coordinates from the given values; null values are replaced with the matching defaults.
+     *
+     * @param groupId group ID of the project.
+     * @param artifactId artifact ID of the project.
+     * @param version version of the project.
+     * @param parentVersion effective version of the parent in the build.
+     * @param parentArtifactVersion version of the parent specified in the POM.
+     */
+    public ProjectCoordinates(String groupId, String artifactId, String version, String parentVersion,
+                              String parentArtifactVersion) {
+
+        this.groupId = valueOrDefault(groupId, UNKNOWN_ARTIFACT);
+        this.artifactId = valueOrDefault(artifactId, UNKNOWN_ARTIFACT);
+        this.version = valueOrDefault(version, UNKNOWN_PROJECT_VERSION);
+        this.parentVersion = valueOrDefault(parentVersion, UNKNOWN_PARENT_VERSION);
+        this.parentArtifactVersion = valueOrDefault(parentArtifactVersion, UNKNOWN_PARENT_VERSION_FROM_POM);
+    }
+
+    /**
+     * Read the coordinates directly from the project model.  The version of the parent from the POM is read from the
+     * model rather than through the parent artifact, which avoids creating that artifact.
+     *
+     * @param project the project.
+     * @return the coordinates of the project.
+     */
+    public static ProjectCoordinates fromProject(MavenProject project) {
+        String parentVersion = null;
+        String parentArtifactVersion = null;
+
+        MavenProject parentProject = project.getParent();
+        if (parentProject != null) {
+            parentVersion = parentProject.getVersion();
+        }
+
+        Parent parent = project.getModel().getParent();
+        if (parent != null) {
+            parentArtifactVersion = parent.getVersion();
+        }
+
+        return new ProjectCoordinates(project.getGroupId(), project.getArtifactId(), project.getVersion(),
+                parentVersion, parentArtifactVersion);
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getParentVersion() {
+        return parentVersion;
+    }
+
+    public String getParentArtifactVersion() {
+        return parentArtifactVersion;
+    }
+
+    public boolean hasParent() {
+        return !UNKNOWN_PARENT_VERSION.equals(this.parentVersion);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof ProjectCoordinates)) {
+            return false;
+        }
+
+        ProjectCoordinates otherCoordinates = (ProjectCoordinates) other;
+
+        return (this.artifactId.equals(otherCoordinates.artifactId)) &&
+                (this.groupId.equals(otherCoordinates.groupId)) &&
+                (this.version.equals(otherCoordinates.version)) &&
+                (this.parentVersion.equals(otherCoordinates.parentVersion)) &&
+                (this.parentArtifactVersion.equals(otherCoordinates.parentArtifactVersion));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.groupId.hashCode();
+        result = (31 * result) + this.artifactId.hashCode();
+        result = (31 * result) + this.version.hashCode();
+        result = (31 * result) + this.parentVersion.hashCode();
+        result = (31 * result) + this.parentArtifactVersion.hashCode();
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.groupId + ":" + this.artifactId + ":" + this.version + ";parent=" + this.parentVersion +
+                ";parentInPom=" + this.parentArtifactVersion;
+    }
+
+    private static String valueOrDefault(String value, String defaultValue) {
+        if (value != null) {
+            return value;
+        }
+
+        return defaultValue;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.project.MavenProject;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Countdown over the projects of a reactor, to act once every project has been counted, whatever order the projects
+ * execute in.  Parallel builds execute projects out of reactor order, so the last project in the reactor is not
+ * necessarily the last one to execute.  Counting a project more than once, or a project outside the reactor, has no
+ * effect.
+ */
+public class ReactorCountdown {
+
+    /**
+     * &lt;group-id&gt;:&lt;artifact-id&gt; of each project not yet counted.
+     */
+    private final Set<String> remaining;
+
+    private boolean complete;
+
+    public ReactorCountdown(List<MavenProject> projects) {
+        this.remaining = new HashSet<>();
+        if (projects != null) {
+            for (MavenProject project : projects) {
+                this.remaining.add(project.getGroupId() + ":" + project.getArtifactId());
+            }
+        }
+    }
+
+    /**
+     * Count the given project.
+     *
+     * @param projectId &lt;group-id&gt;:&lt;artifact-id&gt; of the project.
+     * @return true => this call counted the last remaining project; false otherwise, including on every later call.
+     */
+    public synchronized boolean countDown(String projectId) {
+        if ((this.complete) || (!this.remaining.remove(projectId)) || (!this.remaining.isEmpty())) {
+            return false;
+        }
+
+        this.complete = true;
+
+        return true;
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.model.Parent;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verdicts for every project in a reactor, computed in a single pass.  A {@link CoordinateIndex} of the reactor is
+ * built first, and then each project is validated against its parent, exactly as the rule validates a single project,
+ * so no project model is resolved or evaluated more than once.  The index also holds the parent link and verdict of each project,
+ * so the validation retained for the build stays small even for reactors of many thousands of projects.
+ *
+ * The parent links between projects in the reactor form a graph, over which the nearest failed ancestor of each
+ * project is computed, memoized, so ancestors shared by many projects are only walked once.  Projects are also
+ * grouped by the &lt;group-id&gt;:&lt;artifact-id&gt; of their parent, in the same pass, to find parents referenced
+ * with more than one version across the reactor.
+ *
+ * A &lt;group-id&gt;:&lt;artifact-id&gt; defined by more than one POM, such as a copy of a module under src/it when
+ * validating a tree of POMs, fails validation naming all of the POMs, rather than one definition silently replacing
+ * the other.
+ */
+public class ReactorValidation {
+
+    /**
+     * Maximum number of projects listed for each version of an inconsistent parent.
+     */
+    private static final int MAX_LISTED_PROJECTS = 3;
+
+    /**
+     * Marks the projects not yet walked while finding the failed chains.
+     */
+    private static final int UNKNOWN = -2;
+
+    /**
+     * Coordinates, parent in the reactor, and verdict of each project.
+     */
+    private final CoordinateIndex index;
+
+    private final Map<String, Verdict> failedVerdicts;
+
+    /**
+     * Ordinal of the nearest failed ancestor in the reactor of each project, including the project itself; NONE for
+     * projects without one.
+     */
+    private final int[] failedChains;
+
+    /**
+     * Failure for each parent referenced with more than one version, keyed by the parent.
+     */
+    private final Map<String, Verdict> inconsistentParents;
+
+    /**
+     * Keys of the projects defined by more than one POM.
+     */
+    private final Set<String> duplicatedProjects;
+
+    private ReactorValidation(CoordinateIndex index, Map<String, Verdict> failedVerdicts, int[] failedChains,
+                              Map<String, Verdict> inconsistentParents, Set<String> duplicatedProjects) {
+        this.index = index;
+        this.failedVerdicts = failedVerdicts;
+        this.failedChains = failedChains;
+        this.inconsistentParents = inconsistentParents;
+        this.duplicatedProjects = duplicatedProjects;
+    }
+
+    /**
+     * Validate all of the given projects.
+     *
+     * @param rule the rule, the configuration of which applies to the validation.
+     * @param projects all of the projects in the reactor.
+     * @param log log for debug output.
+     * @return the validation holding the verdicts of all of the projects.
+     */
+    public static ReactorValidation validate(ParentVersionRule rule, List<MavenProject> projects, Log log) {
+        return validate(rule, projects, CiFriendlyVersions.NONE, log);
+    }
+
+    /**
+     * Validate all of the given projects, resolving CI-friendly placeholders in their versions.
+     *
+     * @param rule the rule, the configuration of which applies to the validation.
+     * @param projects all of the projects in the reactor.
+     * @param versions resolver of CI-friendly version placeholders.
+     * @param log log for debug output.
+     * @return the validation holding the verdicts of all of the projects.
+     */
+    public static ReactorValidation validate(ParentVersionRule rule, List<MavenProject> projects,
+                                             CiFriendlyVersions versions, Log log) {
+        CoordinateIndex index = new CoordinateIndex(projects.size());
+        Map<String, Verdict> failedVerdicts = new LinkedHashMap<>();
+        Map<String, Map<String, List<String>>> parentReferences = new HashMap<>();
+
+        //
+        // Index the versions of all of the projects in the reactor, noting any project defined more than once.
+        //
+        Set<String> duplicatedProjects = new HashSet<>();
+        for (MavenProject project : projects) {
+            int ordinal = index.add(project.getGroupId(), project.getArtifactId(),
+                    versions.resolve(project.getVersion()));
+            if (ordinal == CoordinateIndex.NONE) {
+                duplicatedProjects.add(key(project.getGroupId(), project.getArtifactId()));
+            }
+        }
+
+        Map<String, Verdict> duplicateVerdicts = describeDuplicates(projects, duplicatedProjects);
+
+
+        //
+        // Validate each project against its parent.  The effective version of the parent is the version of the parent
+        //  that maven resolved for the project, as when validating the project on its own; when the project has no
+        //  resolved parent, the version of the parent in the reactor applies, or else the version from the POM.  A
+        //  project defined more than once is not validated against its parent, as it is not known which definition
+        //  is meant.
+        //
+        for (MavenProject project : projects) {
+            int ordinal = index.find(project.getGroupId(), project.getArtifactId());
+
+            if (!duplicateVerdicts.isEmpty()) {
+                Verdict duplicateVerdict = duplicateVerdicts.get(key(project.getGroupId(), project.getArtifactId()));
+                if (duplicateVerdict != null) {
+                    index.setVerdict(ordinal, duplicateVerdict);
+                    failedVerdicts.put(key(project.getGroupId(), project.getArtifactId()), duplicateVerdict);
+                    continue;
+                }
+            }
+
+            String parentVersion = null;
+            String parentArtifactVersion = null;
+
+            Parent parent = project.getModel().getParent();
+            if (parent != null) {
+                parentArtifactVersion = versions.resolve(parent.getVersion());
+
+                addParentReference(parentReferences, key(parent.getGroupId(), parent.getArtifactId()),
+                        parentArtifactVersion, key(project.getGroupId(), project.getArtifactId()));
+
+                int parentOrdinal = index.find(parent.getGroupId(), parent.getArtifactId());
+                if (parentOrdinal == CoordinateIndex.NONE) {
+                    parentVersion = parentArtifactVersion;
+                } else {
+                    parentVersion = index.getVersion(parentOrdinal);
+                    index.setParent(ordinal, parentOrdinal);
+                }
+
+                if (project.getParent() != null) {
+                    parentVersion = versions.resolve(project.getParent().getVersion());
+                }
+            }
+
+            ProjectCoordinates coordinates = new ProjectCoordinates(project.getGroupId(), project.getArtifactId(),
+                    versions.resolve(project.getVersion()), parentVersion, parentArtifactVersion);
+
+            Verdict verdict = rule.validate(log, coordinates);
+
+            index.setVerdict(ordinal, verdict);
+            if (verdict.isFailed()) {
+                failedVerdicts.put(key(project.getGroupId(), project.getArtifactId()), verdict);
+            }
+        }
+
+
+        //
+        // Find the nearest failed ancestor of every project, memoizing the result for each project in the chain.
+        //
+        int[] failedChains = new int[index.size()];
+        Arrays.fill(failedChains, UNKNOWN);
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            failedChains[ordinal] = findFailedChain(ordinal, index, failedChains);
+        }
+
+
+        //
+        // Find the parents referenced with more than one version.
+        //
+        Map<String, Verdict> inconsistentParents = new HashMap<>();
+        for (Map.Entry<String, Map<String, List<String>>> references : parentReferences.entrySet()) {
+            if (references.getValue().size() > 1) {
+                inconsistentParents.put(references.getKey(),
+                        describeInconsistentParent(references.getKey(), references.getValue()));
+            }
+        }
+
+        return new ReactorValidation(index, Collections.unmodifiableMap(failedVerdicts), failedChains,
+                Collections.unmodifiableMap(inconsistentParents), Collections.unmodifiableSet(duplicatedProjects));
+    }
+
+    /**
+     * Build the failure for each project defined by more than one POM, naming the POMs in reactor order.
+     *
+     * @param projects all of the projects in the reactor.
+     * @param duplicatedProjects keys of the projects defined more than once.
+     * @return the failed verdicts keyed by project; empty when no project is defined more than once.
+     */
+    private static Map<String, Verdict> describeDuplicates(List<MavenProject> projects,
+                                                           Set<String> duplicatedProjects) {
+        if (duplicatedProjects.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, List<File>> pomFiles = new LinkedHashMap<>();
+        for (MavenProject project : projects) {
+            String projectKey = key(project.getGroupId(), project.getArtifactId());
+            if (duplicatedProjects.contains(projectKey)) {
+                List<File> projectPomFiles = pomFiles.get(projectKey);
+                if (projectPomFiles == null) {
+                    projectPomFiles = new ArrayList<>();
+                    pomFiles.put(projectKey, projectPomFiles);
+                }
+
+                projectPomFiles.add(project.getFile());
+            }
+        }
+
+        Map<String, Verdict> result = new HashMap<>();
+        for (Map.Entry<String, List<File>> duplicate : pomFiles.entrySet()) {
+            result.put(duplicate.getKey(), Verdict.failed("project " + duplicate.getKey() +
+                    " is defined by more than one pom: " + duplicate.getValue()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Record the reference of a project to a version of its parent.
+     *
+     * @param parentReferences projects referencing each version of each parent, in reactor order.
+     * @param parentKey key of the parent.
+     * @param parentVersion version of the parent referenced.
+     * @param projectKey key of the project referencing the parent.
+     */
+    private static void addParentReference(Map<String, Map<String, List<String>>> parentReferences, String parentKey,
+                                           String parentVersion, String projectKey) {
+        Map<String, List<String>> versions = parentReferences.get(parentKey);
+        if (versions == null) {
+            versions = new LinkedHashMap<>();
+            parentReferences.put(parentKey, versions);
+        }
+
+        List<String> projectKeys = versions.get(parentVersion);
+        if (projectKeys == null) {
+            projectKeys = new ArrayList<>();
+            versions.put(parentVersion, projectKeys);
+        }
+
+        projectKeys.add(projectKey);
+    }
+
+    /**
+     * Build the failure for a parent referenced with more than one version, naming up to the first few projects that
+     * reference each version.
+     *
+     * @param parentKey key of the parent.
+     * @param versions projects referencing each version of the parent.
+     * @return the failed verdict.
+     */
+    private static Verdict describeInconsistentParent(String parentKey, Map<String, List<String>> versions) {
+        StringBuilder reason = new StringBuilder();
+        reason.append("parent ").append(parentKey).append(" is referenced with more than one version:");
+
+        String separator = " ";
+        for (Map.Entry<String, List<String>> version : versions.entrySet()) {
+            List<String> projectKeys = version.getValue();
+
+            reason.append(separator).append(version.getKey()).append(" by ");
+            reason.append(projectKeys.subList(0, Math.min(projectKeys.size(), MAX_LISTED_PROJECTS)));
+            if (projectKeys.size() > MAX_LISTED_PROJECTS) {
+                reason.append(" and ").append(projectKeys.size() - MAX_LISTED_PROJECTS).append(" more");
+            }
+
+            separator = "; ";
+        }
+
+        return Verdict.failed(reason.toString());
+    }
+
+    /**
+     * Find the nearest project in the reactor, starting with the given one and walking up its parents, that failed
+     * validation.  Results are memoized for every project walked, so each project is only walked once.
+     *
+     * @param ordinal ordinal of the project from which to start.
+     * @param index index of the reactor.
+     * @param memo results found so far, by ordinal: the ordinal of the nearest failed project, NONE for projects
+     *             without a failed ancestor, or UNKNOWN for projects not yet walked.
+     * @return ordinal of the nearest failed project, or NONE if there is none.
+     */
+    private static int findFailedChain(int ordinal, CoordinateIndex index, int[] memo) {
+        int[] walked = new int[8];
+        int walkedCount = 0;
+        int current = ordinal;
+        int result = CoordinateIndex.NONE;
+
+        while (current != CoordinateIndex.NONE) {
+            if (memo[current] != UNKNOWN) {
+                result = memo[current];
+                break;
+            }
+
+            if (index.isFailed(current)) {
+                result = current;
+                break;
+            }
+
+            // Mark the project as walked, which also stops the walk on a cycle.
+            memo[current] = CoordinateIndex.NONE;
+            if (walkedCount == walked.length) {
+                walked = Arrays.copyOf(walked, walkedCount * 2);
+            }
+            walked[walkedCount++] = current;
+            current = index.getParent(current);
+        }
+
+        for (int walkedIndex = 0; walkedIndex < walkedCount; walkedIndex++) {
+            memo[walked[walkedIndex]] = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the verdict for the chain of ancestors of the given project in the reactor, excluding the project
+     * itself: a failure naming the nearest ancestor that failed validation, if any.
+     *
+     * @param project project for which to return the verdict.
+     * @return the failed verdict of the ancestors, or null if none of the ancestors in the reactor failed, or the
+     * project is not part of the reactor.
+     */
+    public Verdict getAncestorVerdict(MavenProject project) {
+        int ordinal = this.index.find(project.getGroupId(), project.getArtifactId());
+        if ((ordinal == CoordinateIndex.NONE) || (this.index.getParent(ordinal) == CoordinateIndex.NONE)) {
+            return null;
+        }
+
+        int failed = this.failedChains[this.index.getParent(ordinal)];
+        if (failed == CoordinateIndex.NONE) {
+            return null;
+        }
+
+        return Verdict.failed("ancestor " + this.index.getKey(failed) + " failed validation: " +
+                this.index.getVerdict(failed).getReason());
+    }
+
+    /**
+     * Return the verdict for the given project.
+     *
+     * @param project project for which to return the verdict.
+     * @return the verdict of the project, or null if the project is not part of the reactor.
+     */
+    public Verdict getVerdict(MavenProject project) {
+        int ordinal = this.index.find(project.getGroupId(), project.getArtifactId());
+        if (ordinal == CoordinateIndex.NONE) {
+            return null;
+        }
+
+        return this.index.getVerdict(ordinal);
+    }
+
+    /**
+     * Return the version of the given project in the reactor, with CI-friendly placeholders resolved.
+     *
+     * @param groupId group id of the project.
+     * @param artifactId artifact id of the project.
+     * @return the version, or null if the project is not part of the reactor.
+     */
+    public String getReactorVersion(String groupId, String artifactId) {
+        int ordinal = this.index.find(groupId, artifactId);
+        if (ordinal == CoordinateIndex.NONE) {
+            return null;
+        }
+
+        return this.index.getVersion(ordinal);
+    }
+
+    /**
+     * Return the verdict for the consistency of the parent version of the given project with the other projects in
+     * the reactor that have the same parent.
+     *
+     * @param project project for which to return the verdict.
+     * @return a failed verdict listing the versions when the parent of the project is referenced with more than one
+     * version in the reactor; null otherwise.
+     */
+    public Verdict getSiblingVerdict(MavenProject project) {
+        Parent parent = project.getModel().getParent();
+        if (parent == null) {
+            return null;
+        }
+
+        return this.inconsistentParents.get(key(parent.getGroupId(), parent.getArtifactId()));
+    }
+
+    /**
+     * Determine whether the given project is defined by more than one POM in the reactor.
+     *
+     * @param groupId group id of the project.
+     * @param artifactId artifact id of the project.
+     * @return true => the project is defined more than once; false => it is not.
+     */
+    public boolean isDuplicated(String groupId, String artifactId) {
+        return this.duplicatedProjects.contains(key(groupId, artifactId));
+    }
+
+    /**
+     * Return the failed verdicts, in reactor order.
+     *
+     * @return the failed verdicts keyed by &lt;group-id&gt;:&lt;artifact-id&gt; of the project.
+     */
+    public Map<String, Verdict> getFailedVerdicts() {
+        return this.failedVerdicts;
+    }
+
+    /**
+     * Return the number of projects validated.
+     *
+     * @return the number of projects.
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    private static String key(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+}
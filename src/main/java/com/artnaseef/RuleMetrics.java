@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings of the executions of the rule in a build.  Counters are atomic, so executions of the rule on
+ * modules built in parallel can share them.
+ */
+public class RuleMetrics {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong executeNanos = new AtomicLong();
+    private final AtomicLong maxExecuteNanos = new AtomicLong();
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong ignoreHits = new AtomicLong();
+    private final AtomicLong ignoreMisses = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong violations = new AtomicLong();
+
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    /**
+     * Record a completed execution of the rule.
+     *
+     * @param nanos wall time of the execution, in nanoseconds.
+     */
+    public void recordExecution(long nanos) {
+        this.executions.incrementAndGet();
+        this.executeNanos.addAndGet(nanos);
+
+        long max = this.maxExecuteNanos.get();
+        while ((nanos > max) && (!this.maxExecuteNanos.compareAndSet(max, nanos))) {
+            max = this.maxExecuteNanos.get();
+        }
+    }
+
+    public void recordEvaluation() {
+        this.evaluations.incrementAndGet();
+    }
+
+    public void recordIgnoreCheck(boolean hit) {
+        if (hit) {
+            this.ignoreHits.incrementAndGet();
+        } else {
+            this.ignoreMisses.incrementAndGet();
+        }
+    }
+
+    public void recordCacheHit() {
+        this.cacheHits.incrementAndGet();
+    }
+
+    public void recordViolation() {
+        this.violations.incrementAndGet();
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos.get();
+    }
+
+    public long getMaxExecuteNanos() {
+        return maxExecuteNanos.get();
+    }
+
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    public long getIgnoreHits() {
+        return ignoreHits.get();
+    }
+
+    public long getIgnoreMisses() {
+        return ignoreMisses.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getViolations() {
+        return violations.get();
+    }
+
+    /**
+     * Claim the end-of-build report, so it is only produced once.
+     *
+     * @return true => the caller must produce the report; false => it was already claimed.
+     */
+    public boolean claimReport() {
+        return this.reported.compareAndSet(false, true);
+    }
+
+    /**
+     * Return a one-line, human-readable summary of the metrics.
+     *
+     * @return the summary.
+     */
+    public String toSummary() {
+        return "parent version rule: executions=" + this.getExecutions() +
+                "; totalTime=" + TimeUnit.NANOSECONDS.toMillis(this.getExecuteNanos()) + "ms" +
+                "; maxTime=" + TimeUnit.NANOSECONDS.toMillis(this.getMaxExecuteNanos()) + "ms" +
+                "; evaluations=" + this.getEvaluations() +
+                "; ignoreHits=" + this.getIgnoreHits() +
+                "; ignoreMisses=" + this.getIgnoreMisses() +
+                "; cacheHits=" + this.getCacheHits() +
+                "; violations=" + this.getViolations();
+    }
+
+    /**
+     * Return the metrics as a JSON object.
+     *
+     * @return the JSON text.
+     */
+    public String toJson() {
+        return "{" +
+                "\"executions\":" + this.getExecutions() +
+                ",\"executeNanos\":" + this.getExecuteNanos() +
+                ",\"maxExecuteNanos\":" + this.getMaxExecuteNanos() +
+                ",\"evaluations\":" + this.getEvaluations() +
+                ",\"ignoreHits\":" + this.getIgnoreHits() +
+                ",\"ignoreMisses\":" + this.getIgnoreMisses() +
+                ",\"cacheHits\":" + this.getCacheHits() +
+                ",\"violations\":" + this.getViolations() +
+                "}\n";
+    }
+
+    /**
+     * Write the metrics, as JSON, to the given file, creating its directory if needed.
+     *
+     * @param file the file to write.
+     * @throws IOException when the file cannot be written.
+     */
+    public void writeJson(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+        }
+
+        Files.write(file.toPath(), this.toJson().getBytes(UTF_8));
+    }
+}
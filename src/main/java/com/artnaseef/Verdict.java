@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+/**
+ * Outcome of validating the parent version of a single artifact.  Verdicts are immutable so they can be shared
+ * between executions of the rule.
+ */
+public class Verdict {
+
+    public enum Status {
+        PASSED,
+        IGNORED,
+        MISSING_PARENT,
+        UNCHANGED,
+        FAILED
+    }
+
+    public static final Verdict PASSED = new Verdict(Status.PASSED, null);
+    public static final Verdict IGNORED = new Verdict(Status.IGNORED, "ignoring this artifact; it matches the ignore list");
+    public static final Verdict MISSING_PARENT =
+            new Verdict(Status.MISSING_PARENT, "ignoring this artifact due to no/missing parent");
+    public static final Verdict UNCHANGED =
+            new Verdict(Status.UNCHANGED, "skipping this artifact; neither its pom nor an ancestor pom changed");
+
+    private final Status status;
+    private final String reason;
+
+    private Verdict(Status status, String reason) {
+        this.status = status;
+        this.reason = reason;
+    }
+
+    /**
+     * Create a failed verdict.
+     *
+     * @param reason description of the failure, used as the message of the resulting enforcer exception.
+     * @return the new verdict.
+     */
+    public static Verdict failed(String reason) {
+        return new Verdict(Status.FAILED, reason);
+    }
+
+    /**
+     * Return the verdict with the given status; the shared instance is returned for every status other than FAILED.
+     *
+     * @param status status of the verdict.
+     * @param reason description of the failure; only used for a FAILED status.
+     * @return the verdict.
+     */
+    public static Verdict forStatus(Status status, String reason) {
+        switch (status) {
+            case PASSED:
+                return PASSED;
+
+            case IGNORED:
+                return IGNORED;
+
+            case MISSING_PARENT:
+                return MISSING_PARENT;
+
+            case UNCHANGED:
+                return UNCHANGED;
+
+            default:
+                return failed(reason);
+        }
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isFailed() {
+        return this.status == Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        if (this.reason == null) {
+            return this.status.toString();
+        }
+
+        return this.status + ": " + this.reason;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Machine-readable report of the verdicts of a build, written as the rule executes.  Each record is appended, one per
+ * line, to a working file next to the report, through a single writer that is opened with the first record and
+ * flushed after each one, so the records are not held in memory.  Once the build is done, the writer is closed, the
+ * records are copied, line by line, into the final JSON or SARIF document and the working file is removed.  If the
+ * build stops early, the working file remains, holding one complete JSON object per line.
+ *
+ * Every verdict appended is recorded, in the order appended; the report keeps no state per record.
+ */
+public class VerdictReport {
+
+    public enum Format {
+        JSON("json"),
+        SARIF("sarif");
+
+        private final String configName;
+
+        Format(String configName) {
+            this.configName = configName;
+        }
+
+        public String getConfigName() {
+            return configName;
+        }
+
+        /**
+         * Return the format with the given name, as used in the rule configuration.
+         *
+         * @param name name of the format, json or sarif; case is ignored.
+         * @return the format.
+         * @throws IllegalArgumentException when there is no format with the name.
+         */
+        public static Format forConfigName(String name) {
+            for (Format format : values()) {
+                if (format.configName.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+
+            throw new IllegalArgumentException("unknown report format '" + name + "'; expected one of: json sarif");
+        }
+
+        @Override
+        public String toString() {
+            return this.configName;
+        }
+    }
+
+    public static final String RULE_ID = "parent-version";
+    public static final String WORKING_FILE_SUFFIX = ".part";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String SARIF_HEADER = "{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\"," +
+            "\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":\"maven-enforcer-parent-version-rule\"," +
+            "\"informationUri\":\"http://www.github.com/artnaseef/maven-enforcer-parent-version-rule\"," +
+            "\"rules\":[{\"id\":\"" + RULE_ID + "\",\"shortDescription\":{\"text\":\"The version of a module must " +
+            "match the version of its parent\"}}]}},\"results\":[\n";
+    private static final String SARIF_FOOTER = "]}]}\n";
+
+    private final File file;
+    private final Format format;
+    private final File workingFile;
+
+    /**
+     * Writer of the working file; null until the first record is appended, and after the report is finished.
+     */
+    private Writer workingWriter;
+
+    private long records;
+    private boolean finished;
+
+    public VerdictReport(File file, Format format) {
+        this.file = file;
+        this.format = format;
+        this.workingFile = new File(file.getPath() + WORKING_FILE_SUFFIX);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * Append the verdict of a project to the report.
+     *
+     * @param executionId id of the execution of the rule.
+     * @param coordinates coordinates of the project.
+     * @param parentGroupId group ID of the parent, from the POM; null if not known.
+     * @param parentArtifactId artifact ID of the parent, from the POM; null if not known.
+     * @param pomFile POM file of the project; null if not known.
+     * @param verdict verdict of the project.
+     * @param time time at which the verdict was reached, in milliseconds since the epoch.
+     * @return true => the record is in the report; false => the report was already finished, so the record was not
+     * written.
+     * @throws IOException when the record cannot be written.
+     */
+    public synchronized boolean append(String executionId, ProjectCoordinates coordinates, String parentGroupId,
+                                       String parentArtifactId, File pomFile, Verdict verdict, long time)
+            throws IOException {
+        if (this.finished) {
+            return false;
+        }
+
+        if (this.workingWriter == null) {
+            File directory = this.workingFile.getAbsoluteFile().getParentFile();
+            if (directory != null) {
+                Files.createDirectories(directory.toPath());
+            }
+
+            this.workingWriter = Files.newBufferedWriter(this.workingFile.toPath(), UTF_8);
+        }
+
+        String record = toJson(executionId, coordinates, parentGroupId, parentArtifactId, pomFile, verdict, time);
+        if (this.format == Format.SARIF) {
+            record = toSarifResult(record, pomFile, verdict);
+        }
+
+        this.workingWriter.write(record);
+        this.workingWriter.write('\n');
+        this.workingWriter.flush();
+
+        this.records++;
+
+        return true;
+    }
+
+    /**
+     * Write the final report from the records appended so far, and remove the working file.  Only the first call has
+     * any effect.
+     *
+     * @return true => the report was written by this call; false => it was already finished.
+     * @throws IOException when the report cannot be written.
+     */
+    public synchronized boolean finish() throws IOException {
+        if (this.finished) {
+            return false;
+        }
+
+        this.finished = true;
+        if (this.workingWriter != null) {
+            this.workingWriter.close();
+            this.workingWriter = null;
+        }
+
+        File directory = this.file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+        }
+
+        File tempFile = new File(this.file.getPath() + ".tmp");
+        try (BufferedWriter output = Files.newBufferedWriter(tempFile.toPath(), UTF_8)) {
+            if (this.format == Format.SARIF) {
+                output.write(SARIF_HEADER);
+            } else {
+                output.write("[\n");
+            }
+
+            if (this.workingFile.isFile()) {
+                try (BufferedReader input = Files.newBufferedReader(this.workingFile.toPath(), UTF_8)) {
+                    String line = input.readLine();
+                    while (line != null) {
+                        output.write(line);
+
+                        line = input.readLine();
+                        if (line != null) {
+                            output.write(",\n");
+                        } else {
+                            output.write('\n');
+                        }
+                    }
+                }
+            }
+
+            if (this.format == Format.SARIF) {
+                output.write(SARIF_FOOTER);
+            } else {
+                output.write("]\n");
+            }
+        }
+
+        Files.move(tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(this.workingFile.toPath());
+
+        return true;
+    }
+
+    /**
+     * Format a record as a single-line JSON object.
+     */
+    static String toJson(String executionId, ProjectCoordinates coordinates, String parentGroupId,
+                         String parentArtifactId, File pomFile, Verdict verdict, long time) {
+        StringBuilder result = new StringBuilder();
+
+        result.append("{\"execution\":");
+        appendString(result, executionId);
+        result.append(",\"groupId\":");
+        appendString(result, coordinates.getGroupId());
+        result.append(",\"artifactId\":");
+        appendString(result, coordinates.getArtifactId());
+        result.append(",\"version\":");
+        appendString(result, coordinates.getVersion());
+
+        result.append(",\"parent\":");
+        if ((coordinates.hasParent()) || (parentArtifactId != null)) {
+            result.append("{\"groupId\":");
+            appendString(result, parentGroupId);
+            result.append(",\"artifactId\":");
+            appendString(result, parentArtifactId);
+            result.append(",\"version\":");
+            appendString(result, coordinates.getParentArtifactVersion());
+            result.append(",\"effectiveVersion\":");
+            appendString(result, coordinates.getParentVersion());
+            result.append('}');
+        } else {
+            result.append("null");
+        }
+
+        result.append(",\"status\":");
+        appendString(result, verdict.getStatus().name());
+        result.append(",\"reason\":");
+        appendString(result, verdict.getReason());
+        result.append(",\"pom\":");
+        if (pomFile != null) {
+            appendString(result, pomFile.getPath());
+        } else {
+            result.append("null");
+        }
+        result.append(",\"time\":").append(time);
+        result.append('}');
+
+        return result.toString();
+    }
+
+    /**
+     * Wrap the given JSON record in a SARIF result, keeping the record as the properties of the result.
+     */
+    private static String toSarifResult(String record, File pomFile, Verdict verdict) {
+        StringBuilder result = new StringBuilder();
+
+        result.append("{\"ruleId\":\"").append(RULE_ID).append('"');
+        switch (verdict.getStatus()) {
+            case FAILED:
+                result.append(",\"kind\":\"fail\",\"level\":\"error\"");
+                break;
+
+            case PASSED:
+                result.append(",\"kind\":\"pass\",\"level\":\"none\"");
+                break;
+
+            default:
+                result.append(",\"kind\":\"notApplicable\",\"level\":\"none\"");
+                break;
+        }
+
+        result.append(",\"message\":{\"text\":");
+        if (verdict.getReason() != null) {
+            appendString(result, verdict.getReason());
+        } else {
+            appendString(result, "parent version matches");
+        }
+        result.append('}');
+
+        if (pomFile != null) {
+            result.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+            appendString(result, pomFile.getAbsoluteFile().toURI().toString());
+            result.append("}}}]");
+        }
+
+        result.append(",\"properties\":").append(record);
+        result.append('}');
+
+        return result.toString();
+    }
+
+    /**
+     * Append the given value as a JSON string, or null.
+     */
+    private static void appendString(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+
+        builder.append('"');
+        for (int index = 0; index < value.length(); index++) {
+            char ch = value.charAt(index);
+            switch (ch) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+
+                case '\n':
+                    builder.append("\\n");
+                    break;
+
+                case '\r':
+                    builder.append("\\r");
+                    break;
+
+                case '\t':
+                    builder.append("\\t");
+                    break;
+
+                default:
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+                    break;
+            }
+        }
+        builder.append('"');
+    }
+}
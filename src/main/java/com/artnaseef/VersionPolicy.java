@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+/**
+ * Policy deciding whether the version of a project matches the version of its parent.  Every policy other than EXACT
+ * compares the parsed forms of the versions; versions that do not start with a number are always compared exactly.
+ */
+public enum VersionPolicy {
+
+    /**
+     * The versions must be identical strings.
+     */
+    EXACT("exact"),
+
+    /**
+     * The versions must be equal, ignoring trailing zero components and the case of the qualifier; e.g. 1.0 equals
+     * 1.0.0.
+     */
+    EQUIVALENT("equivalent"),
+
+    /**
+     * The numeric components must be equal, ignoring the qualifier; e.g. 1.0.0-SNAPSHOT matches 1.0.0.
+     */
+    IGNORE_QUALIFIER("ignore-qualifier"),
+
+    /**
+     * The major and minor components must be equal; e.g. 1.2.3 matches 1.2.0.
+     */
+    SAME_MAJOR_MINOR("same-major-minor"),
+
+    /**
+     * The major components must be equal; e.g. 1.2.3 matches 1.0.
+     */
+    SAME_MAJOR("same-major");
+
+    private final String configName;
+
+    VersionPolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Return the policy with the given name, as used in the rule configuration.
+     *
+     * @param name name of the policy, such as same-major-minor; case is ignored.
+     * @return the policy.
+     * @throws IllegalArgumentException when there is no policy with the name.
+     */
+    public static VersionPolicy forConfigName(String name) {
+        for (VersionPolicy policy : values()) {
+            if (policy.configName.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append("unknown version policy '").append(name).append("'; expected one of:");
+        for (VersionPolicy policy : values()) {
+            message.append(' ').append(policy.configName);
+        }
+
+        throw new IllegalArgumentException(message.toString());
+    }
+
+    /**
+     * Determine whether the given version of a project matches the given version of its parent.
+     *
+     * @param version version of the project.
+     * @param parentVersion version of the parent.
+     * @return true => the versions match under this policy; false => they do not.
+     */
+    public boolean matches(String version, String parentVersion) {
+        if ((this == EXACT) || (version.equals(parentVersion))) {
+            return version.equals(parentVersion);
+        }
+
+        ParsedVersion parsed = ParsedVersion.of(version);
+        ParsedVersion parsedParent = ParsedVersion.of(parentVersion);
+        if ((!parsed.isNumeric()) || (!parsedParent.isNumeric())) {
+            return false;
+        }
+
+        switch (this) {
+            case EQUIVALENT:
+                return (parsed.componentsEqual(parsedParent)) &&
+                        (parsed.getQualifier().equals(parsedParent.getQualifier()));
+
+            case IGNORE_QUALIFIER:
+                return parsed.componentsEqual(parsedParent);
+
+            case SAME_MAJOR_MINOR:
+                return (parsed.getComponent(0) == parsedParent.getComponent(0)) &&
+                        (parsed.getComponent(1) == parsedParent.getComponent(1));
+
+            case SAME_MAJOR:
+                return parsed.getComponent(0) == parsedParent.getComponent(0);
+
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.configName;
+    }
+}
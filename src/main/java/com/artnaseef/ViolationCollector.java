@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parent version violations collected across the projects of a build, so they can all be reported in a single
+ * failure rather than failing the build at the first one.  The report is only produced once, so executions of the rule
+ * after the report do not fail the build again for the violations already reported; a violation of any other project
+ * after the report is refused, so that it is not lost.
+ */
+public class ViolationCollector {
+
+    private final Map<String, String> violations = new LinkedHashMap<>();
+    private boolean reported;
+
+    /**
+     * Record the violation of the given project; a later violation for the same project replaces the earlier one.
+     *
+     * @param project &lt;group-id&gt;:&lt;artifact-id&gt; of the project.
+     * @param reason description of the violation.
+     * @return true => the violation was recorded, or the project was already reported; false => the report was
+     * already taken without the project, so the violation needs to be reported on its own.
+     */
+    public synchronized boolean add(String project, String reason) {
+        if (this.reported) {
+            return this.violations.containsKey(project);
+        }
+
+        this.violations.put(project, reason);
+
+        return true;
+    }
+
+    public synchronized int size() {
+        return this.violations.size();
+    }
+
+    /**
+     * Return the report of all the violations collected, unless there are none, or they were already reported.
+     *
+     * @return the report listing every violation, or null if there is nothing to report.
+     */
+    public synchronized String takeReport() {
+        if ((this.reported) || (this.violations.isEmpty())) {
+            return null;
+        }
+
+        this.reported = true;
+
+        StringBuilder result = new StringBuilder();
+        result.append("parent version violations in ").append(this.violations.size()).append(" project(s):");
+        for (Map.Entry<String, String> entry : this.violations.entrySet()) {
+            result.append("\n    ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+
+        return result.toString();
+    }
+}
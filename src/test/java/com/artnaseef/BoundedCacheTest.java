@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the BoundedCache.
+ */
+public class BoundedCacheTest {
+
+    /**
+     * Weigher counting each entry as its value, so the tests control the weight of every entry.
+     */
+    private static final BoundedCache.Weigher<String, Long> VALUE_WEIGHER = new BoundedCache.Weigher<String, Long>() {
+        @Override
+        public long weigh(String key, Long value) {
+            return value;
+        }
+    };
+
+    /**
+     * Verify the least recently used entries are evicted once the bound is reached.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        long entryWeight = BoundedCache.ENTRY_OVERHEAD + 36;
+        BoundedCache<String, Long> cache = new BoundedCache<>(3 * entryWeight, 1, VALUE_WEIGHER);
+
+        assertNull(cache.putIfAbsent("x-first-x", 36L));
+        assertNull(cache.putIfAbsent("x-second-x", 36L));
+        assertNull(cache.putIfAbsent("x-third-x", 36L));
+        assertEquals(3, cache.size());
+        assertEquals(3 * entryWeight, cache.getWeight());
+
+        assertEquals(Long.valueOf(36L), cache.get("x-first-x"));
+        assertNull(cache.putIfAbsent("x-fourth-x", 36L));
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("x-second-x"));
+        assertNotNull(cache.get("x-first-x"));
+        assertNotNull(cache.get("x-third-x"));
+        assertNotNull(cache.get("x-fourth-x"));
+    }
+
+    /**
+     * Verify an existing entry is kept, and an entry larger than the whole bound is not cached.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPutIfAbsent() throws Exception {
+        BoundedCache<String, Long> cache = new BoundedCache<>(1000, 1, VALUE_WEIGHER);
+
+        assertNull(cache.putIfAbsent("x-key-x", 10L));
+        assertEquals(Long.valueOf(10L), cache.putIfAbsent("x-key-x", 20L));
+        assertEquals(Long.valueOf(10L), cache.get("x-key-x"));
+
+        assertNull(cache.putIfAbsent("x-huge-x", 1000L));
+        assertNull(cache.get("x-huge-x"));
+        assertEquals(1, cache.size());
+
+        cache.remove("x-key-x");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    /**
+     * Verify the weight stays within the bound across all of the segments, however many entries are added.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBoundAcrossSegments() throws Exception {
+        BoundedCache<String, Long> cache = new BoundedCache<>(16 * 1024, 16, VALUE_WEIGHER);
+        assertEquals(16 * 1024, cache.getMaxWeight());
+
+        for (int entry = 0; entry < 10000; entry++) {
+            cache.putIfAbsent("x-key-" + entry + "-x", 100L);
+            assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        }
+
+        assertTrue(cache.size() > 0);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    /**
+     * Verify the total bound is read from the system property, falling back to the default.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetTotalMaxBytes() throws Exception {
+        String original = System.getProperty(BoundedCache.MAX_BYTES_PROPERTY);
+        try {
+            System.setProperty(BoundedCache.MAX_BYTES_PROPERTY, "1048576");
+            assertEquals(1048576, BoundedCache.getTotalMaxBytes());
+            assertEquals(1048576 / 2, new BoundedCache<>(0.5, VALUE_WEIGHER).getMaxWeight());
+
+            System.setProperty(BoundedCache.MAX_BYTES_PROPERTY, "x-not-a-number-x");
+            assertEquals(BoundedCache.DEFAULT_MAX_BYTES, BoundedCache.getTotalMaxBytes());
+
+            System.clearProperty(BoundedCache.MAX_BYTES_PROPERTY);
+            assertEquals(BoundedCache.DEFAULT_MAX_BYTES, BoundedCache.getTotalMaxBytes());
+        } finally {
+            if (original != null) {
+                System.setProperty(BoundedCache.MAX_BYTES_PROPERTY, original);
+            } else {
+                System.clearProperty(BoundedCache.MAX_BYTES_PROPERTY);
+            }
+        }
+    }
+}
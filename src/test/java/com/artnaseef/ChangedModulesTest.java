@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the ChangedModules.
+ */
+public class ChangedModulesTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private MavenProject rootProject;
+    private MavenProject childProject;
+    private MavenProject grandchildProject;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.root = this.temporaryFolder.getRoot();
+
+        this.rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null, null);
+        this.rootProject.setFile(new File(this.root, "pom.xml"));
+
+        this.childProject = TestProjects.createProject("x-group-x", "x-child-x", "1.0.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        this.childProject.setFile(new File(this.root, "child/pom.xml"));
+        this.childProject.setParent(this.rootProject);
+
+        this.grandchildProject = TestProjects.createProject("x-group-x", "x-grandchild-x", "1.0.0",
+                "x-group-x", "x-child-x", "1.0.0");
+        this.grandchildProject.setFile(new File(this.root, "child/grandchild/pom.xml"));
+        this.grandchildProject.setParent(this.childProject);
+    }
+
+    /**
+     * Verify a project counts as changed when its own pom, or the pom of an ancestor, changed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIsChanged() throws Exception {
+        ChangedModules changedModules = ChangedModules.fromPaths(Arrays.asList("child/pom.xml", "", "README.md"),
+                this.root);
+
+        assertEquals(2, changedModules.size());
+        assertFalse(changedModules.isChanged(this.rootProject));
+        assertTrue(changedModules.isChanged(this.childProject));
+        assertTrue(changedModules.isChanged(this.grandchildProject));
+    }
+
+    /**
+     * Verify a project without a known pom file always counts as changed, as does every project when the changed
+     * files are not known.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIsChangedUnknown() throws Exception {
+        MavenProject project = TestProjects.createProject("x-group-x", "x-artifact-x", "1.0.0", null, null,
+                null);
+
+        assertTrue(ChangedModules.fromPaths(Arrays.asList("x-other-x/pom.xml"), this.root).isChanged(project));
+
+        assertEquals(-1, ChangedModules.ALL.size());
+        assertTrue(ChangedModules.ALL.isChanged(this.rootProject));
+    }
+
+    /**
+     * Verify reading the changed files from a list, with both relative and absolute paths.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromFileList() throws Exception {
+        File listFile = this.temporaryFolder.newFile("changed.txt");
+        Files.write(listFile.toPath(), ("child/grandchild/pom.xml\n" + new File(this.root, "pom.xml").getPath() +
+                "\n").getBytes(UTF_8));
+
+        ChangedModules changedModules = ChangedModules.fromFileList(listFile, this.root);
+
+        assertEquals(2, changedModules.size());
+        assertTrue(changedModules.isChanged(this.rootProject));
+        assertTrue(changedModules.isChanged(this.childProject));
+    }
+
+    /**
+     * Verify finding the changed files with git, including committed, uncommitted and untracked changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromGit() throws Exception {
+        Assume.assumeTrue(this.git("--version"));
+
+        assertTrue(new File(this.root, "child/grandchild").mkdirs());
+        Files.write(new File(this.root, "pom.xml").toPath(), "<project/>".getBytes(UTF_8));
+        Files.write(new File(this.root, "child/pom.xml").toPath(), "<project/>".getBytes(UTF_8));
+
+        assertTrue(this.git("init", "-q"));
+        assertTrue(this.git("add", "."));
+        assertTrue(this.git("-c", "user.name=x", "-c", "user.email=x@x", "commit", "-q", "-m", "x-base-x"));
+        assertTrue(this.git("tag", "x-base-x"));
+
+        Files.write(new File(this.root, "child/pom.xml").toPath(), "<project></project>".getBytes(UTF_8));
+        Files.write(new File(this.root, "child/grandchild/pom.xml").toPath(), "<project/>".getBytes(UTF_8));
+
+        ChangedModules changedModules = ChangedModules.fromGit(new File(this.root, "child"), "x-base-x");
+
+        assertEquals(2, changedModules.size());
+        assertFalse(changedModules.isChanged(this.rootProject));
+        assertTrue(changedModules.isChanged(this.childProject));
+        assertTrue(changedModules.isChanged(this.grandchildProject));
+    }
+
+    /**
+     * Verify a failure of git is reported.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromGitFailure() throws Exception {
+        Assume.assumeTrue(this.git("--version"));
+
+        try {
+            ChangedModules.fromGit(this.root, "x-base-x");
+            fail("Missing expected exception");
+        } catch (IOException ioExc) {
+            assertTrue(ioExc.getMessage().contains(" failed with exit code "));
+        }
+    }
+
+    private boolean git(String... args) throws Exception {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+
+        try {
+            Process process = new ProcessBuilder(command).directory(this.root).redirectErrorStream(true).start();
+            while (process.getInputStream().read() != -1) {
+                // Drain the output so git cannot block on it.
+            }
+            return process.waitFor() == 0;
+        } catch (IOException ioExc) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the CiFriendlyVersions.
+ */
+public class CiFriendlyVersionsTest {
+
+    /**
+     * Verify resolution of the placeholders, leaving unknown placeholders in place.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResolve() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("revision", "1.2.0");
+        properties.setProperty("changelist", "-SNAPSHOT");
+        properties.setProperty("x-other-x", "x-value-x");
+
+        CiFriendlyVersions versions = CiFriendlyVersions.fromProperties(properties);
+
+        assertEquals("1.2.0-SNAPSHOT", versions.resolve("${revision}${changelist}"));
+        assertEquals("1.2.0${sha1}", versions.resolve("${revision}${sha1}"));
+        assertEquals("${x-other-x}", versions.resolve("${x-other-x}"));
+        assertEquals("1.0.0", versions.resolve("1.0.0"));
+        assertNull(versions.resolve((String) null));
+
+        assertEquals("${revision}", CiFriendlyVersions.NONE.resolve("${revision}"));
+    }
+
+    /**
+     * Verify later properties take precedence, and null properties are skipped.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromPropertiesPrecedence() throws Exception {
+        Properties first = new Properties();
+        first.setProperty("revision", "1.0.0");
+        first.setProperty("sha1", "-x-first-x");
+
+        Properties second = new Properties();
+        second.setProperty("revision", "2.0.0");
+
+        CiFriendlyVersions versions = CiFriendlyVersions.fromProperties(first, null, second);
+
+        assertEquals("2.0.0-x-first-x", versions.resolve("${revision}${sha1}"));
+    }
+
+    /**
+     * Verify the user properties of the session take precedence over the properties of the top-level project, which
+     * take precedence over the system properties.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testForSession() throws Exception {
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("revision", "x-system-x");
+        systemProperties.setProperty("sha1", "x-system-x");
+        systemProperties.setProperty("changelist", "x-system-x");
+
+        MavenProject topLevelProject = TestProjects.createProject("x-group-x", "x-root-x", "${revision}", null,
+                null, null);
+        topLevelProject.getModel().getProperties().setProperty("revision", "x-project-x");
+        topLevelProject.getModel().getProperties().setProperty("sha1", "x-project-x");
+
+        Properties userProperties = new Properties();
+        userProperties.setProperty("revision", "x-user-x");
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSystemProperties()).thenReturn(systemProperties);
+        Mockito.when(mockSession.getTopLevelProject()).thenReturn(topLevelProject);
+        Mockito.when(mockSession.getUserProperties()).thenReturn(userProperties);
+
+        CiFriendlyVersions versions = CiFriendlyVersions.forSession(mockSession);
+
+        assertEquals("x-user-x/x-project-x/x-system-x", versions.resolve("${revision}/${sha1}/${changelist}"));
+    }
+
+    /**
+     * Verify resolution of coordinates, returning the same coordinates when there is nothing to resolve.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResolveCoordinates() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("revision", "1.2.0");
+
+        CiFriendlyVersions versions = CiFriendlyVersions.fromProperties(properties);
+
+        ProjectCoordinates plain = new ProjectCoordinates("x-group-x", "x-artifact-x", "1.2.0", "1.2.0", "1.2.0");
+        assertSame(plain, versions.resolve(plain));
+
+        ProjectCoordinates resolved = versions.resolve(new ProjectCoordinates("x-group-x", "x-artifact-x",
+                "${revision}", "1.2.0", "${revision}"));
+        assertEquals("x-group-x", resolved.getGroupId());
+        assertEquals("x-artifact-x", resolved.getArtifactId());
+        assertEquals("1.2.0", resolved.getVersion());
+        assertEquals("1.2.0", resolved.getParentVersion());
+        assertEquals("1.2.0", resolved.getParentArtifactVersion());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress test of concurrent executions of the rule, as in a parallel (-T) build, all sharing the same build session,
+ * reactor validation, verdict cache, and metrics.
+ */
+public class ConcurrentExecutionTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int PROJECT_COUNT = 200;
+    private static final int ITERATIONS = 20;
+
+    private ExecutorService executor;
+    private MavenSession mockSession;
+    private List<MavenProject> projects;
+    private List<String> ignoreList;
+
+    /**
+     * Project currently being built by each thread.
+     */
+    private final ThreadLocal<MavenProject> currentProject = new ThreadLocal<>();
+
+    /**
+     * Setup common test data and interactions: a reactor in which every tenth project has a mismatched version, and
+     * every seventh project is ignored.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        ParentVersionRule.clearVerdictCache();
+        this.executor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+
+        this.projects = new ArrayList<>();
+        this.projects.add(rootProject);
+        for (int module = 1; module < PROJECT_COUNT; module++) {
+            String version = "1.0.0";
+            if ((module % 10) == 0) {
+                version = "1.1.0";
+            }
+
+            MavenProject project = TestProjects.createProject("x-group-x", "x-module" + module + "-x", version,
+                    "x-group-x", "x-root-x", "1.0.0");
+            project.setParent(rootProject);
+            this.projects.add(project);
+        }
+
+        this.ignoreList = Arrays.asList("x-module*7-x", "x-group-x:x-module3-x");
+
+        this.mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(this.mockSession.getSortedProjects()).thenReturn(Collections.unmodifiableList(this.projects));
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Verify executions of the rule from many threads at once, with reactor validation, all get the right verdict.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentReactorValidation() throws Exception {
+        this.runConcurrently(true);
+    }
+
+    /**
+     * Verify executions of the rule from many threads at once, validating each project on its own, all get the right
+     * verdict, and the metrics shared between them are exact.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentProjectValidation() throws Exception {
+        this.runConcurrently(false);
+
+        //
+        // Every execution either validates the project, checking the ignore list, or uses the cached verdict.
+        //
+        RuleMetrics metrics = BuildSessionState.get(this.mockSession).getMetrics();
+        long executions = THREAD_COUNT * ITERATIONS * PROJECT_COUNT;
+        long validations = metrics.getIgnoreHits() + metrics.getIgnoreMisses();
+
+        assertEquals(executions, metrics.getExecutions());
+        assertEquals(executions, validations + metrics.getCacheHits());
+        assertTrue(validations >= PROJECT_COUNT);
+        assertEquals(this.countExpectedFailures() * THREAD_COUNT * ITERATIONS, metrics.getViolations());
+    }
+
+    /**
+     * Execute the rule on every project from all of the threads at once, each thread starting at a different project,
+     * and verify each verdict.
+     *
+     * @param reactorValidation whether to use reactor validation.
+     * @throws Exception
+     */
+    private void runConcurrently(final boolean reactorValidation) throws Exception {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final int offset = thread * (PROJECT_COUNT / THREAD_COUNT);
+            final EnforcerRuleHelper helper = this.createHelper();
+
+            results.add(this.executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    startLatch.await();
+
+                    int failures = 0;
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        for (int index = 0; index < PROJECT_COUNT; index++) {
+                            int module = (index + offset) % PROJECT_COUNT;
+                            currentProject.set(projects.get(module));
+
+                            ParentVersionRule rule = new ParentVersionRule();
+                            rule.setIgnore(ignoreList);
+                            rule.setReactorValidation(reactorValidation);
+                            rule.setMetrics(true);
+
+                            try {
+                                rule.execute(helper);
+                                assertFalse("module " + module, isExpectedFailure(module));
+                            } catch (EnforcerRuleException exc) {
+                                assertTrue("module " + module, isExpectedFailure(module));
+                                failures++;
+                            }
+                        }
+                    }
+
+                    return failures;
+                }
+            }));
+        }
+
+        startLatch.countDown();
+
+        for (Future<Integer> result : results) {
+            assertEquals(Integer.valueOf(this.countExpectedFailures() * ITERATIONS), result.get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    private int countExpectedFailures() {
+        int result = 0;
+        for (int module = 0; module < PROJECT_COUNT; module++) {
+            if (isExpectedFailure(module)) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isExpectedFailure(int module) {
+        String artifactId = "x-module" + module + "-x";
+        boolean ignored = (artifactId.endsWith("7-x")) || (module == 3);
+
+        return (module != 0) && ((module % 10) == 0) && (!ignored);
+    }
+
+    /**
+     * Create a helper for a single thread, which answers the project currently being built by the thread.
+     */
+    private EnforcerRuleHelper createHelper() throws Exception {
+        EnforcerRuleHelper helper = Mockito.mock(EnforcerRuleHelper.class);
+        Log log = Mockito.mock(Log.class);
+
+        Mockito.when(helper.getLog()).thenReturn(log);
+        Mockito.when(helper.evaluate("${session}")).thenReturn(this.mockSession);
+        Mockito.when(helper.evaluate("${project}")).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return currentProject.get();
+            }
+        });
+
+        return helper;
+    }
+}
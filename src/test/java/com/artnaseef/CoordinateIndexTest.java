@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the CoordinateIndex.
+ */
+public class CoordinateIndexTest {
+
+    /**
+     * Maximum number of bytes the index may allocate per module, for a reactor sized up front.
+     */
+    private static final int BYTES_PER_MODULE_BUDGET = 64;
+
+    /**
+     * Verify modules are added, found by group and artifact id, and left unchanged when added again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAddFind() throws Exception {
+        CoordinateIndex index = new CoordinateIndex(2);
+
+        int root = index.add("x-group-x", "x-root-x", "1.0.0");
+        int child = index.add("x-group-x", "x-child-x", null);
+
+        assertEquals(0, root);
+        assertEquals(1, child);
+        assertEquals(2, index.size());
+        assertEquals(4, index.getSymbolCount());
+
+        assertEquals(root, index.find("x-group-x", "x-root-x"));
+        assertEquals(child, index.find("x-group-x", "x-child-x"));
+        assertEquals(CoordinateIndex.NONE, index.find("x-group-x", "x-missing-x"));
+        assertEquals(CoordinateIndex.NONE, index.find("x-other-group-x", "x-root-x"));
+        assertEquals(CoordinateIndex.NONE, index.find(null, "x-root-x"));
+
+        assertEquals("x-group-x", index.getGroupId(child));
+        assertEquals("x-child-x", index.getArtifactId(child));
+        assertNull(index.getVersion(child));
+        assertEquals("x-group-x:x-root-x", index.getKey(root));
+
+        assertEquals(CoordinateIndex.NONE, index.add("x-group-x", "x-root-x", "2.0.0"));
+        assertEquals(2, index.size());
+        assertEquals("1.0.0", index.getVersion(root));
+    }
+
+    /**
+     * Verify the parent links and verdicts of the modules, with shared verdicts for every status other than FAILED.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParentsAndVerdicts() throws Exception {
+        CoordinateIndex index = new CoordinateIndex(2);
+        int root = index.add("x-group-x", "x-root-x", "1.0.0");
+        int child = index.add("x-group-x", "x-child-x", "1.0.0");
+
+        assertEquals(CoordinateIndex.NONE, index.getParent(child));
+        index.setParent(child, root);
+        assertEquals(root, index.getParent(child));
+
+        assertSame(Verdict.PASSED, index.getVerdict(root));
+
+        index.setVerdict(root, Verdict.IGNORED);
+        assertSame(Verdict.IGNORED, index.getVerdict(root));
+        assertFalse(index.isFailed(root));
+
+        Verdict failed = Verdict.failed("x-reason-x");
+        index.setVerdict(child, failed);
+        assertSame(failed, index.getVerdict(child));
+        assertTrue(index.isFailed(child));
+
+        index.setVerdict(child, Verdict.UNCHANGED);
+        assertSame(Verdict.UNCHANGED, index.getVerdict(child));
+        assertFalse(index.isFailed(child));
+    }
+
+    /**
+     * Verify the index grows beyond its expected size, keeping every module.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGrow() throws Exception {
+        CoordinateIndex index = new CoordinateIndex(0);
+
+        for (int module = 0; module < 1000; module++) {
+            assertEquals(module, index.add("x-group" + (module % 7) + "-x", "x-module" + module + "-x",
+                    "1.0." + module));
+        }
+
+        assertEquals(1000, index.size());
+        for (int module = 0; module < 1000; module++) {
+            int ordinal = index.find("x-group" + (module % 7) + "-x", "x-module" + module + "-x");
+            assertEquals(module, ordinal);
+            assertEquals("1.0." + module, index.getVersion(ordinal));
+        }
+    }
+
+    /**
+     * Verify the memory footprint of a large reactor stays within the per-module budget, using the allocation counter
+     * of the current thread.  The strings are created up front, since the index only keeps references to them.
+     * Skipped on JVMs without thread allocation accounting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFootprint() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        int modules = 10000;
+        String[] groupIds = new String[modules];
+        String[] artifactIds = new String[modules];
+        String[] versions = new String[modules];
+        for (int module = 0; module < modules; module++) {
+            groupIds[module] = "com.example.group" + (module % 10);
+            artifactIds[module] = "service-module-" + module;
+            versions[module] = "1.0." + (module % 3);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+
+        CoordinateIndex index = new CoordinateIndex(modules);
+        for (int module = 0; module < modules; module++) {
+            int ordinal = index.add(groupIds[module], artifactIds[module], versions[module]);
+            if (module > 0) {
+                index.setParent(ordinal, (module - 1) / 10);
+            }
+            index.setVerdict(ordinal, Verdict.PASSED);
+        }
+
+        long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(modules, index.size());
+        assertTrue("allocated " + allocated + " bytes for " + modules + " modules",
+                allocated < (long) modules * BYTES_PER_MODULE_BUDGET);
+    }
+}
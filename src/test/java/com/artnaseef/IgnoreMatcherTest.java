@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the IgnoreMatcher.
+ */
+public class IgnoreMatcherTest {
+
+    /**
+     * Verify matching of exact artifact and &lt;group-id&gt;:&lt;artifact-id&gt; entries.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExactMatches() throws Exception {
+        IgnoreMatcher matcher = IgnoreMatcher.forSpecifications(
+                Arrays.asList("x-ignore-artifact1-x", "x-ignore-group2-x:x-ignore-artifact2-x"));
+
+        assertTrue(matcher.matches("x-any-group-x", "x-ignore-artifact1-x"));
+        assertTrue(matcher.matches("x-ignore-group2-x", "x-ignore-artifact2-x"));
+        assertFalse(matcher.matches("x-other-group-x", "x-ignore-artifact2-x"));
+        assertFalse(matcher.matches("x-ignore-group2-x", "x-other-artifact-x"));
+    }
+
+    /**
+     * Verify matching of glob entries, in both forms, and that other regular expression characters are literal.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGlobMatches() throws Exception {
+        IgnoreMatcher matcher = IgnoreMatcher.forSpecifications(Arrays.asList("com.acme.*:*-bom", "gen-?-module"));
+
+        assertTrue(matcher.matches("com.acme.services", "orders-bom"));
+        assertFalse(matcher.matches("com.acme.services", "orders-api"));
+        assertFalse(matcher.matches("comXacme.services", "orders-bom"));
+        assertTrue(matcher.matches("x-any-group-x", "gen-1-module"));
+        assertFalse(matcher.matches("x-any-group-x", "gen-10-module"));
+    }
+
+    /**
+     * Verify an empty ignore list matches nothing.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        IgnoreMatcher matcher = IgnoreMatcher.forSpecifications(Collections.<String>emptyList());
+
+        assertFalse(matcher.matches("x-group-x", "x-artifact-x"));
+    }
+
+    /**
+     * Verify equal ignore lists share the compiled matcher, and later changes to the list do not affect it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSharedMatcher() throws Exception {
+        List<String> specifications = new ArrayList<>(Arrays.asList("x-shared-artifact-x"));
+
+        IgnoreMatcher matcher = IgnoreMatcher.forSpecifications(specifications);
+        assertSame(matcher, IgnoreMatcher.forSpecifications(Arrays.asList("x-shared-artifact-x")));
+
+        specifications.add("x-added-artifact-x");
+        assertFalse(matcher.matches("x-group-x", "x-added-artifact-x"));
+    }
+
+    /**
+     * Verify the matcher of a very large ignore list is also shared, rather than compiled again on each lookup.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSharedLargeMatcher() throws Exception {
+        List<String> specifications = new ArrayList<>();
+        for (int entry = 0; entry < 20000; entry++) {
+            specifications.add("x-group-" + entry + "-x:x-artifact-" + entry + "-x");
+        }
+
+        IgnoreMatcher matcher = IgnoreMatcher.forSpecifications(specifications);
+        assertSame(matcher, IgnoreMatcher.forSpecifications(new ArrayList<>(specifications)));
+        assertTrue(matcher.matches("x-group-19999-x", "x-artifact-19999-x"));
+    }
+
+    /**
+     * Verify the id of an ignore list is compact, equal for equal lists, and different for different entries, order or
+     * boundaries between entries.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testId() throws Exception {
+        String id = IgnoreMatcher.forSpecifications(Arrays.asList("x-one-x", "x-two-x")).getId();
+
+        assertEquals(32, id.length());
+        assertEquals(id, IgnoreMatcher.forSpecifications(new ArrayList<>(Arrays.asList("x-one-x", "x-two-x"))).getId());
+        assertNotEquals(id, IgnoreMatcher.forSpecifications(Arrays.asList("x-two-x", "x-one-x")).getId());
+        assertNotEquals(id, IgnoreMatcher.forSpecifications(Arrays.asList("x-one-xx-two-x")).getId());
+        assertNotEquals(id, IgnoreMatcher.forSpecifications(Collections.<String>emptyList()).getId());
+    }
+}
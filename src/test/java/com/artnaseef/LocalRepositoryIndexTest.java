@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+
+package com.artnaseef;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the LocalRepositoryIndex.
+ */
+public class LocalRepositoryIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File repository;
+    private LocalRepositoryIndex index;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.repository = this.temporaryFolder.newFolder("repository");
+        this.index = new LocalRepositoryIndex(this.repository);
+    }
+
+    /**
+     * Verify released versions count only when their POM is present, and not when only a marker file is.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContainsRelease() throws Exception {
+        this.install("x.group.x", "x-artifact-x", "1.0.0", "x-artifact-x-1.0.0.pom");
+        this.install("x.group.x", "x-artifact-x", "2.0.0", "x-artifact-x-2.0.0.pom.lastUpdated");
+
+        assertEquals(this.repository, this.index.getDirectory());
+        assertTrue(this.index.contains("x.group.x", "x-artifact-x", "1.0.0"));
+        assertFalse(this.index.contains("x.group.x", "x-artifact-x", "2.0.0"));
+        assertFalse(this.index.contains("x.group.x", "x-artifact-x", "3.0.0"));
+        assertFalse(this.index.contains("x.group.x", "x-other-x", "1.0.0"));
+    }
+
+    /**
+     * Verify snapshot versions count with the POM of a local install, or of a timestamped snapshot.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContainsSnapshot() throws Exception {
+        this.install("x.group.x", "x-artifact-x", "1.0.0-SNAPSHOT", "x-artifact-x-1.0.0-SNAPSHOT.pom");
+        this.install("x.group.x", "x-artifact-x", "2.0.0-SNAPSHOT", "x-artifact-x-2.0.0-20160101.120000-1.pom");
+        this.install("x.group.x", "x-artifact-x", "3.0.0-SNAPSHOT", "maven-metadata-remote.xml");
+
+        assertEquals(new HashSet<>(Arrays.asList("1.0.0-SNAPSHOT", "2.0.0-SNAPSHOT")),
+                this.index.getVersions("x.group.x", "x-artifact-x"));
+    }
+
+    /**
+     * Verify the versions of each artifact are listed once, and not relisted when the repository changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetVersionsMemoized() throws Exception {
+        assertEquals(0, this.index.size());
+        assertTrue(this.index.getVersions("x.group.x", "x-artifact-x").isEmpty());
+        assertEquals(1, this.index.size());
+
+        this.install("x.group.x", "x-artifact-x", "1.0.0", "x-artifact-x-1.0.0.pom");
+
+        Set<String> versions = this.index.getVersions("x.group.x", "x-artifact-x");
+        assertTrue(versions.isEmpty());
+        assertSame(versions, this.index.getVersions("x.group.x", "x-artifact-x"));
+        assertEquals(1, this.index.size());
+
+        assertTrue(new LocalRepositoryIndex(this.repository).contains("x.group.x", "x-artifact-x", "1.0.0"));
+    }
+
+    private void install(String groupId, String artifactId, String version, String fileName) throws Exception {
+        File versionDirectory = new File(this.repository, groupId.replace('.', '/') + "/" + artifactId + "/" + version);
+        assertTrue(versionDirectory.mkdirs());
+        assertTrue(new File(versionDirectory, fileName).createNewFile());
+    }
+}
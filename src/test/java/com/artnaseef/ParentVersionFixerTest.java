@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the ParentVersionFixer.
+ */
+public class ParentVersionFixerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private Log mockLog;
+    private ParentVersionRule rule;
+
+    private MavenProject rootProject;
+    private MavenProject childProject;
+    private MavenProject ownVersionProject;
+    private List<MavenProject> projects;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.pool = new ForkJoinPool(2);
+        this.mockLog = Mockito.mock(Log.class);
+
+        this.rule = new ParentVersionRule();
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        this.rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", "x-external-group-x",
+                "x-external-x", "7");
+        this.childProject = TestProjects.createProject("x-group-x", "x-child-x", null, "x-group-x",
+                "x-root-x", "0.9.0");
+        this.ownVersionProject = TestProjects.createProject("x-group-x", "x-own-x", "2.0.0", "x-group-x",
+                "x-root-x", "0.9.0");
+
+        this.rootProject.setFile(this.writePom("pom.xml", "x-external-x", "7"));
+        this.childProject.setFile(this.writePom("child/pom.xml", "x-root-x", "0.9.0"));
+        this.ownVersionProject.setFile(this.writePom("own/pom.xml", "x-root-x", "0.9.0"));
+
+        this.projects = Arrays.asList(this.rootProject, this.childProject, this.ownVersionProject);
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Verify only the failing projects are planned, and only those whose parent is in the reactor and which inherit,
+     * or match, the parent version are fixable.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPlanFixes() throws Exception {
+        ReactorValidation validation = ReactorValidation.validate(this.rule, this.projects, this.mockLog);
+
+        List<ParentVersionFixer.Fix> fixes = ParentVersionFixer.planFixes(this.projects, validation,
+                CiFriendlyVersions.NONE);
+
+        assertEquals(2, fixes.size());
+
+        ParentVersionFixer.Fix childFix = fixes.get(0);
+        assertEquals("x-group-x:x-child-x", childFix.getProjectId());
+        assertEquals(this.childProject.getFile(), childFix.getPomFile());
+        assertEquals("0.9.0", childFix.getOldVersion());
+        assertEquals("1.0.0", childFix.getNewVersion());
+        assertTrue(childFix.isFixable());
+
+        ParentVersionFixer.Fix ownVersionFix = fixes.get(1);
+        assertEquals("x-group-x:x-own-x", ownVersionFix.getProjectId());
+        assertFalse(ownVersionFix.isFixable());
+        assertEquals("the module declares its own version 2.0.0, which differs from the parent version 1.0.0",
+                ownVersionFix.getProblem());
+    }
+
+    /**
+     * Verify a failing project whose parent is not in the reactor is not fixable.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPlanFixesParentNotInReactor() throws Exception {
+        this.rule.setIgnore(Collections.<String>emptyList());
+        List<MavenProject> rootOnly = Collections.singletonList(this.rootProject);
+
+        List<ParentVersionFixer.Fix> fixes = ParentVersionFixer.planFixes(rootOnly,
+                ReactorValidation.validate(this.rule, rootOnly, this.mockLog), CiFriendlyVersions.NONE);
+
+        assertEquals(1, fixes.size());
+        assertFalse(fixes.get(0).isFixable());
+        assertEquals("the parent is not in the reactor, so its version is not known", fixes.get(0).getProblem());
+    }
+
+    /**
+     * Verify fixing the reactor rewrites the fixable poms, and reports the rest.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFixReactor() throws Exception {
+        String ownVersionContent = this.read(this.ownVersionProject.getFile());
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule, this.projects, this.mockLog);
+        assertEquals(1, ParentVersionFixer.fixReactor(this.projects, validation, CiFriendlyVersions.NONE,
+                this.mockLog));
+
+        assertTrue(this.read(this.childProject.getFile()).contains("<version>1.0.0</version>"));
+        assertEquals(ownVersionContent, this.read(this.ownVersionProject.getFile()));
+
+        Mockito.verify(this.mockLog).info("fixed x-group-x:x-child-x: parent version 0.9.0 -> 1.0.0 in " +
+                this.childProject.getFile());
+        Mockito.verify(this.mockLog).warn("x-group-x:x-own-x: not fixed; the module declares its own version 2.0.0, " +
+                "which differs from the parent version 1.0.0");
+    }
+
+    /**
+     * Verify applying a fix to a pom which no longer holds the planned parent version leaves the pom untouched.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testApplyFixesStalePom() throws Exception {
+        File pomFile = this.childProject.getFile();
+        String content = this.read(pomFile);
+
+        ParentVersionFixer.Fix fix = new ParentVersionFixer.Fix("x-group-x:x-child-x", pomFile, "0.8.0", "1.0.0", null);
+        ParentVersionFixer.Fix unfixable = new ParentVersionFixer.Fix("x-group-x:x-own-x", pomFile, "0.9.0", null,
+                "x-problem-x");
+
+        List<ParentVersionFixer.Fix> applied = ParentVersionFixer.applyFixes(Arrays.asList(fix, unfixable), this.pool);
+
+        assertEquals(2, applied.size());
+        assertEquals("the parent version 0.8.0 was not found in the pom", applied.get(0).getProblem());
+        assertSame(unfixable, applied.get(1));
+        assertEquals(content, this.read(pomFile));
+    }
+
+    /**
+     * Verify only the text of the parent version changes, preserving whitespace, comments, and every other version
+     * element in the pom.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRewriteParentVersion() throws Exception {
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!DOCTYPE project>\n" +
+                "<!-- <parent><version>0.9.0</version></parent> -->\n" +
+                "<pom:project xmlns:pom=\"http://maven.apache.org/POM/4.0.0\" x-attr-x='a>b'>\n" +
+                "  <pom:version>0.9.0</pom:version>\n" +
+                "  <description><![CDATA[<parent><version>0.9.0</version></parent>]]></description>\n" +
+                "  <pom:parent>\n" +
+                "    <pom:groupId>x-group-x</pom:groupId>\n" +
+                "    <relativePath/>\n" +
+                "    <pom:version>\n" +
+                "      0.9.0\n" +
+                "    </pom:version>\n" +
+                "  </pom:parent>\n" +
+                "  <dependencies><dependency><version>0.9.0</version></dependency></dependencies>\n" +
+                "</pom:project>\n";
+        File pomFile = this.temporaryFolder.newFile("x-rewrite-x.xml");
+        Files.write(pomFile.toPath(), content.getBytes(UTF_8));
+
+        assertTrue(ParentVersionFixer.rewriteParentVersion(pomFile, "0.9.0", "1.0.0"));
+
+        assertEquals(content.replace("      0.9.0\n", "      1.0.0\n"), this.read(pomFile));
+    }
+
+    /**
+     * Verify poms without the expected parent version are not rewritten.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRewriteParentVersionNotFound() throws Exception {
+        String[] contents = {
+                "<project><parent><version>0.8.0</version></parent></project>",
+                "<project><parent><groupId>x-group-x</groupId></parent><version>0.9.0</version></project>",
+                "<project><parent/><version>0.9.0</version></project>",
+                "<project><dependency><parent><version>0.9.0</version></parent></dependency></project>",
+                "<project><parent><version>0.9.0"
+        };
+
+        for (String content : contents) {
+            File pomFile = this.temporaryFolder.newFile();
+            Files.write(pomFile.toPath(), content.getBytes(UTF_8));
+
+            assertFalse(content, ParentVersionFixer.rewriteParentVersion(pomFile, "0.9.0", "1.0.0"));
+            assertEquals(content, this.read(pomFile));
+        }
+    }
+
+    private File writePom(String path, String parentArtifactId, String parentVersion) throws Exception {
+        String content = "<project>\n" +
+                "  <parent>\n" +
+                "    <groupId>x-group-x</groupId>\n" +
+                "    <artifactId>" + parentArtifactId + "</artifactId>\n" +
+                "    <version>" + parentVersion + "</version>\n" +
+                "  </parent>\n" +
+                "</project>\n";
+
+        File pomFile = new File(this.temporaryFolder.getRoot(), path);
+        pomFile.getParentFile().mkdirs();
+        Files.write(pomFile.toPath(), content.getBytes(UTF_8));
+
+        return pomFile;
+    }
+
+    private String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), UTF_8);
+    }
+}
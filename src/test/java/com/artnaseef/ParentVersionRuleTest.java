@@ -24,14 +24,37 @@ package com.artnaseef;
 import org.apache.maven.enforcer.rule.api.EnforcerRule;
 import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
 import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import static org.junit.Assert.*;
 
@@ -42,12 +65,16 @@ import static org.junit.Assert.*;
  */
 public class ParentVersionRuleTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ParentVersionRule rule;
 
     private EnforcerRuleHelper mockEnforcerRuleHelper;
     private Log mockLog;
 
     private List<String> ignoreList;
+    private String emptyIgnoreId;
     private ExpressionEvaluationException expressionEvaluationException;
 
     /**
@@ -57,6 +84,7 @@ public class ParentVersionRuleTest {
      */
     @Before
     public void setupTest() throws Exception {
+        ParentVersionRule.clearVerdictCache();
         this.rule = new ParentVersionRule();
 
         this.mockEnforcerRuleHelper = Mockito.mock(EnforcerRuleHelper.class);
@@ -65,6 +93,7 @@ public class ParentVersionRuleTest {
         Mockito.when(this.mockEnforcerRuleHelper.getLog()).thenReturn(this.mockLog);
 
         this.ignoreList = Arrays.asList("x-ignore-artifact1-x", "x-ignore-group2-x:x-ignore-artifact2-x");
+        this.emptyIgnoreId = IgnoreMatcher.forSpecifications(Collections.<String>emptyList()).getId();
         this.expressionEvaluationException = new ExpressionEvaluationException("x-expression-evaluation-failed-x");
     }
 
@@ -79,6 +108,7 @@ public class ParentVersionRuleTest {
 
         this.rule.setIgnore(this.ignoreList);
         assertEquals(this.ignoreList, rule.getIgnore());
+        assertSame(IgnoreMatcher.forSpecifications(this.ignoreList).getSpecifications(), rule.getIgnore());
     }
 
     /**
@@ -95,7 +125,7 @@ public class ParentVersionRuleTest {
     }
 
     /**
-     * Verify the rule does not support cached values.
+     * Verify the rule leaves caching to its own verdict cache, rather than the result cache of the enforcer.
      *
      * @throws Exception
      */
@@ -105,7 +135,8 @@ public class ParentVersionRuleTest {
     }
 
     /**
-     * Verify the result of isResultValid().
+     * Verify isResultValid() is false the way the enforcer calls it, on a fresh rule before it executes, even when the
+     * cached rule executed on the same project.
      *
      * @throws Exception
      */
@@ -114,19 +145,126 @@ public class ParentVersionRuleTest {
         EnforcerRule rule1 = Mockito.mock(EnforcerRule.class);
 
         assertFalse(this.rule.isResultValid(rule1));
-
-        // Make sure it's just a constant false regardless of what is passed in.
         Mockito.verifyZeroInteractions(rule1);
+
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        ParentVersionRule sameProjectRule = new ParentVersionRule();
+        assertFalse(sameProjectRule.isResultValid(this.rule));
+
+        sameProjectRule.execute(this.mockEnforcerRuleHelper);
+        assertFalse(sameProjectRule.isResultValid(this.rule));
     }
 
     /**
-     * Verify the result of getCachedId().
+     * Verify the result of getCachedId() before and after execution.
      *
      * @throws Exception
      */
     @Test
     public void testGetCachedId() throws Exception {
-        assertNull(this.rule.getCacheId());
+        String ignoreId = IgnoreMatcher.forSpecifications(this.ignoreList).getId();
+
+        this.rule.setIgnore(this.ignoreList);
+        assertEquals("ignoreMissingParent=true;ignore=" + ignoreId, this.rule.getCacheId());
+
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.1.0", "1.2.0");
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("ignoreMissingParent=true;ignore=" + ignoreId +
+                    ";project=x-group-x:x-artifact-x:1.0.0;parent=1.1.0;parentInPom=1.2.0", this.rule.getCacheId());
+        }
+    }
+
+    /**
+     * Verify a repeat execution with the same inputs reuses the cached verdict, including failures.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteUsesCachedVerdict() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.1.0", "1.1.0");
+
+        for (int iteration = 0; iteration < 2; iteration++) {
+            try {
+                new ParentVersionRule().execute(this.mockEnforcerRuleHelper);
+                fail("Missing expected exception");
+            } catch ( EnforcerRuleException exc ) {
+                assertEquals("parent and project version mismatch: project=1.0.0; parent=1.1.0", exc.getMessage());
+            }
+        }
+
+        Mockito.verify(this.mockLog, Mockito.times(1)).debug("checking ignore of <group>:<artifact>=x-group-x:x-artifact-x");
+        Mockito.verify(this.mockLog).debug("using cached result for ignoreMissingParent=true;ignore=" +
+                this.emptyIgnoreId + ";project=x-group-x:x-artifact-x:1.0.0;parent=1.1.0;parentInPom=1.1.0");
+    }
+
+    /**
+     * Verify the memory allocated by configuring and executing fresh rules, as the enforcer does for each module, on a
+     * module with a cached verdict does not grow with the size of the ignore list.  Skipped on JVMs without thread
+     * allocation accounting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteAllocationIndependentOfIgnoreSize() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(false);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+
+        int iterations = 200;
+        long smallAllocated = this.measureExecuteAllocation(allocationCounter, this.createIgnoreList(1), iterations);
+        long largeAllocated = this.measureExecuteAllocation(allocationCounter, this.createIgnoreList(10000),
+                iterations);
+
+        assertTrue("allocated " + largeAllocated + " bytes with 10000 ignore entries, and " + smallAllocated +
+                " bytes with 1, over " + iterations + " executions",
+                largeAllocated < smallAllocated + (iterations * 1024));
+    }
+
+    /**
+     * Verify the verdict cache holds the verdicts of a large reactor configured with a large ignore list.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVerdictCacheHoldsLargeReactor() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(false);
+
+        final MavenProject[] currentProject = new MavenProject[1];
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return currentProject[0];
+            }
+        });
+
+        MavenProject parentProject = TestProjects.createProject("x-group-x", "x-parent-x", "1.0.0", null,
+                null, null);
+        List<String> ignore = this.createIgnoreList(10000);
+
+        int moduleCount = 2000;
+        for (int module = 0; module < moduleCount; module++) {
+            currentProject[0] = TestProjects.createProject("x-group-x", "x-module-" + module + "-x", "1.0.0",
+                    "x-group-x", "x-parent-x", "1.0.0");
+            currentProject[0].setParent(parentProject);
+
+            ParentVersionRule moduleRule = new ParentVersionRule();
+            moduleRule.setIgnore(ignore);
+            moduleRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        assertEquals(moduleCount, ParentVersionRule.getVerdictCacheSize());
     }
 
     /**
@@ -181,6 +319,7 @@ public class ParentVersionRuleTest {
      */
     @Test
     public void testExecutePassWithNoParentVersion() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
         this.initProject("x-group-x", "x-artifact-x", "1.0.0", null, null);
         this.rule.setIgnoreMissingParent(true);
         this.rule.execute(this.mockEnforcerRuleHelper);
@@ -214,6 +353,7 @@ public class ParentVersionRuleTest {
      */
     @Test
     public void testExecutePassWithIgnoredArtifact1() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
         this.initProject("x-ignore-group1-x", "x-ignore-artifact1-x", "1.0.0", "1.1.0", "1.2.0");
         this.rule.setIgnore(this.ignoreList);
         this.rule.execute(this.mockEnforcerRuleHelper);
@@ -228,6 +368,7 @@ public class ParentVersionRuleTest {
      */
     @Test
     public void testExecutePassWithIgnoredArtifact2() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
         this.initProject("x-ignore-group2-x", "x-ignore-artifact2-x", "1.0.0", "1.1.0", "1.2.0");
         this.rule.setIgnore(this.ignoreList);
         this.rule.execute(this.mockEnforcerRuleHelper);
@@ -235,6 +376,21 @@ public class ParentVersionRuleTest {
         Mockito.verify(this.mockLog).debug("ignoring this artifact; it matches the ignore list");
     }
 
+    /**
+     * Verify ignoring of an artifact by a glob in the ignore list.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecutePassWithIgnoredGlob() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("com.acme.services", "orders-bom", "1.0.0", "1.1.0", "1.2.0");
+        this.rule.setIgnore(Arrays.asList("com.acme.*:*-bom"));
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("ignoring this artifact; it matches the ignore list");
+    }
+
     /**
      * Verify processing of an artifact that does not match the ignore list.
      *
@@ -335,23 +491,1176 @@ public class ParentVersionRuleTest {
     }
 
     /**
-     * Initialize test interactions to mimic a project with the given settings.
+     * Verify the coordinates are read directly from the project model when it is available, without evaluating the
+     * individual properties.
      *
-     * @param groupId groupId of the artifact being built.
-     * @param artifactId artifactId of the artifact being built.
-     * @param version version number of the artifact being built.
-     * @param parentVersion version number of the parent being built (null = none).
-     * @param parentVersionInPom version number of the parent specified in the artifact's pom file (null = none).
      * @throws Exception
      */
-    private void initProject(String groupId, String artifactId, String version, String parentVersion,
-                             String parentVersionInPom) throws Exception {
+    @Test
+    public void testExecuteReadsProjectModel() throws Exception {
+        MavenProject parentProject = TestProjects.createProject("x-group-x", "x-parent-x", "1.1.0", null,
+                null, null);
+        MavenProject project = TestProjects.createProject("x-group-x", "x-artifact-x", "1.0.0", "x-group-x",
+                "x-parent-x", "1.1.0");
+        project.setParent(parentProject);
 
-        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.version}")).thenReturn(version);
-        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.parent.version}")).thenReturn(parentVersion);
-        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.parentArtifact.version}"))
-                .thenReturn(parentVersionInPom);
-        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.artifact.artifactId}")).thenReturn(artifactId);
-        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.artifact.groupId}")).thenReturn(groupId);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.0.0; parent=1.1.0", exc.getMessage());
+        }
+
+        Mockito.verify(this.mockEnforcerRuleHelper).evaluate("${session}");
+        Mockito.verify(this.mockEnforcerRuleHelper).evaluate("${project}");
+        Mockito.verify(this.mockEnforcerRuleHelper, Mockito.times(2)).evaluate(Mockito.anyString());
+    }
+
+    /**
+     * Verify the individual properties are evaluated when evaluation of the project model fails.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteFallsBackOnProjectModelFailure() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenThrow(this.expressionEvaluationException);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("unable to evaluate ${project}");
+        Mockito.verify(this.mockEnforcerRuleHelper).evaluate("${project.parentArtifact.version}");
+    }
+
+    /**
+     * Verify nothing is logged when debug logging is disabled.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteWithoutDebug() throws Exception {
+        this.initProject("x-ignore-group1-x", "x-ignore-artifact1-x", "1.0.0", "1.1.0", "1.2.0");
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(false);
+        this.rule.setIgnore(this.ignoreList);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog, Mockito.never()).debug(Mockito.any(CharSequence.class));
+    }
+
+    /**
+     * Verify executing the rule with debug logging disabled allocates nothing beyond the coordinates and cache key of
+     * the project, using the allocation counter of the current thread; a debug message would allocate its text on
+     * every execution.  The rule is executed through a helper that answers expressions from a map, since a mocked
+     * helper allocates on every call.  Skipped on JVMs without thread allocation accounting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteAllocationFreeWithoutDebug() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        MavenProject project = TestProjects.createProject("x-group-x", "x-artifact-x", "1.0.0", "x-group-x",
+                "x-parent-x", "1.0.0");
+        project.setParent(TestProjects.createProject("x-group-x", "x-parent-x", "1.0.0", null, null, null));
+
+        FixedEnforcerRuleHelper helper = new FixedEnforcerRuleHelper(new SystemStreamLog());
+        helper.values.put("${project}", project);
+        this.rule.setIgnore(this.ignoreList);
+
+        int iterations = 100000;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            this.rule.execute(helper);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            this.rule.execute(helper);
+        }
+        long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes over " + iterations + " executions",
+                allocated < iterations * 128L);
+    }
+
+    /**
+     * Verify the getter and setter for reactorValidation.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetReactorValidation() throws Exception {
+        assertFalse(rule.isReactorValidation());
+
+        this.rule.setReactorValidation(true);
+        assertTrue(rule.isReactorValidation());
+    }
+
+    /**
+     * Verify reactor validation validates the entire reactor on the first execution only, and reports the verdict of
+     * each project.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReactorValidation() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject childProject = TestProjects.createProject("x-group-x", "x-child-x", "1.0.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject badProject = TestProjects.createProject("x-group-x", "x-bad-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, childProject, badProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        this.rule.setReactorValidation(true);
+
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(rootProject);
+        this.rule.execute(this.mockEnforcerRuleHelper);
+        Mockito.verify(this.mockLog).debug("ignoring this artifact due to no/missing parent");
+
+        ParentVersionRule childRule = new ParentVersionRule();
+        childRule.setReactorValidation(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(childProject);
+        childRule.execute(this.mockEnforcerRuleHelper);
+
+        ParentVersionRule badRule = new ParentVersionRule();
+        badRule.setReactorValidation(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject);
+        try {
+            badRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+
+        Mockito.verify(mockSession, Mockito.times(1)).getSortedProjects();
+        Mockito.verify(this.mockEnforcerRuleHelper, Mockito.never()).evaluate("${project.version}");
+    }
+
+    /**
+     * Verify reactor validation falls back to validating the artifact on its own when the session is not available.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReactorValidationWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.setReactorValidation(true);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+        Mockito.verify(this.mockEnforcerRuleHelper).evaluate("${project.version}");
+    }
+
+    /**
+     * Verify the getter and setter for fix.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetFix() throws Exception {
+        assertFalse(rule.isFix());
+
+        this.rule.setFix(true);
+        assertTrue(rule.isFix());
+    }
+
+    /**
+     * Verify fix without reactor validation fails the rule, rather than being silently ignored.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteFixWithoutReactorValidation() throws Exception {
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.setFix(true);
+
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("fix requires reactorValidation; enable reactorValidation, or remove fix", exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify reactor validation with fix rewrites the parent version of the failing poms, and still fails the build.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReactorValidationFix() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject staleProject = TestProjects.createProject("x-group-x", "x-stale-x", null, "x-group-x",
+                "x-root-x", "0.9.0");
+
+        File pomFile = this.temporaryFolder.newFile("x-stale-x.xml");
+        Files.write(pomFile.toPath(), ("<project>\n" +
+                "  <parent>\n" +
+                "    <artifactId>x-root-x</artifactId>\n" +
+                "    <version>0.9.0</version>\n" +
+                "  </parent>\n" +
+                "</project>\n").getBytes(Charset.forName("UTF-8")));
+        staleProject.setFile(pomFile);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, staleProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(staleProject);
+
+        this.rule.setReactorValidation(true);
+        this.rule.setFix(true);
+
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=0.9.0; parent=1.0.0", exc.getMessage());
+        }
+
+        assertTrue(new String(Files.readAllBytes(pomFile.toPath()), Charset.forName("UTF-8"))
+                .contains("<version>1.0.0</version>"));
+        Mockito.verify(this.mockLog).warn("rewrote the parent version in 1 pom(s); rerun the build to validate them");
+    }
+
+    /**
+     * Verify the getter and setter for versionPolicy, and that it is part of the cache id.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetVersionPolicy() throws Exception {
+        assertSame(VersionPolicy.EXACT, rule.getVersionPolicy());
+
+        this.rule.setVersionPolicy("same-major-minor");
+        assertSame(VersionPolicy.SAME_MAJOR_MINOR, rule.getVersionPolicy());
+        assertEquals("ignoreMissingParent=true;ignore=" + this.emptyIgnoreId + ";versionPolicy=same-major-minor",
+                this.rule.getCacheId());
+    }
+
+    /**
+     * Verify the project version is matched to the parent version using the configured policy, while the parent
+     * version from the pom still needs to match exactly.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteWithVersionPolicy() throws Exception {
+        this.rule.setVersionPolicy("same-major-minor");
+
+        this.initProject("x-group-x", "x-artifact-x", "1.2.3", "1.2.0", "1.2.0");
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        this.initProject("x-group-x", "x-artifact-x", "1.3.0", "1.2.0", "1.2.0");
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.3.0; parent=1.2.0; policy=same-major-minor",
+                    exc.getMessage());
+        }
+
+        this.initProject("x-group-x", "x-artifact-x", "1.2.3", "1.2.0", "1.2");
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("actual parent version does not match the one listed in the pom: actual parent version=1.2.0; " +
+                    "version from pom=1.2", exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify the getter and setter for validateAncestors, and that it is part of the cache id.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetValidateAncestors() throws Exception {
+        assertFalse(rule.isValidateAncestors());
+        assertEquals("ignoreMissingParent=true;ignore=" + this.emptyIgnoreId, this.rule.getCacheId());
+
+        this.rule.setValidateAncestors(true);
+        assertTrue(rule.isValidateAncestors());
+        assertEquals("ignoreMissingParent=true;ignore=" + this.emptyIgnoreId + ";validateAncestors=true",
+                this.rule.getCacheId());
+    }
+
+    /**
+     * Verify a project fails when an ancestor in the reactor fails, even though its direct parent matches.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteValidateAncestors() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject driftedProject = TestProjects.createProject("x-group-x", "x-child-x", "1.1.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        MavenProject grandchildProject = TestProjects.createProject("x-group-x", "x-grandchild-x", "1.1.0",
+                "x-group-x", "x-child-x", "1.1.0");
+        driftedProject.setParent(rootProject);
+        grandchildProject.setParent(driftedProject);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects())
+                .thenReturn(Arrays.asList(rootProject, driftedProject, grandchildProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(grandchildProject);
+
+        new ParentVersionRule().execute(this.mockEnforcerRuleHelper);
+
+        for (boolean reactorValidation : new boolean[]{false, true}) {
+            this.rule = new ParentVersionRule();
+            this.rule.setValidateAncestors(true);
+            this.rule.setReactorValidation(reactorValidation);
+
+            try {
+                this.rule.execute(this.mockEnforcerRuleHelper);
+                fail("Missing expected exception");
+            } catch ( EnforcerRuleException exc ) {
+                assertEquals("ancestor x-group-x:x-child-x failed validation: parent and project version mismatch: " +
+                        "project=1.1.0; parent=1.0.0", exc.getMessage());
+            }
+        }
+
+        Mockito.verify(mockSession, Mockito.times(1)).getSortedProjects();
+    }
+
+    /**
+     * Verify only the direct parent is validated without a session.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteValidateAncestorsWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.setValidateAncestors(true);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+    }
+
+    /**
+     * Verify the getter and setter for checkSiblingVersions, and that it is part of the cache id.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetCheckSiblingVersions() throws Exception {
+        assertFalse(rule.isCheckSiblingVersions());
+
+        this.rule.setCheckSiblingVersions(true);
+        assertTrue(rule.isCheckSiblingVersions());
+        assertEquals("ignoreMissingParent=true;ignore=" + this.emptyIgnoreId + ";checkSiblingVersions=true",
+                this.rule.getCacheId());
+    }
+
+    /**
+     * Verify a project fails when its parent is referenced with another version elsewhere in the reactor, even though
+     * its own version matches its parent.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCheckSiblingVersions() throws Exception {
+        MavenProject oldParent = TestProjects.createProject("x-shared-group-x", "x-shared-x", "0.9.0", null,
+                null, null);
+        MavenProject oldProject = TestProjects.createProject("x-group-x", "x-old-x", "0.9.0",
+                "x-shared-group-x", "x-shared-x", "0.9.0");
+        MavenProject newProject = TestProjects.createProject("x-group-x", "x-new-x", "1.0.0",
+                "x-shared-group-x", "x-shared-x", "1.0.0");
+        oldProject.setParent(oldParent);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(oldProject, newProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(oldProject);
+
+        new ParentVersionRule().execute(this.mockEnforcerRuleHelper);
+
+        this.rule.setCheckSiblingVersions(true);
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent x-shared-group-x:x-shared-x is referenced with more than one version: " +
+                    "0.9.0 by [x-group-x:x-old-x]; 1.0.0 by [x-group-x:x-new-x]", exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify the getter and setter for collectViolations.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetCollectViolations() throws Exception {
+        assertFalse(rule.isCollectViolations());
+
+        this.rule.setCollectViolations(true);
+        assertTrue(rule.isCollectViolations());
+    }
+
+    /**
+     * Verify violations are collected across the reactor and reported together by the last project.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCollectViolations() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject1 = TestProjects.createProject("x-group-x", "x-bad1-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject badProject2 = TestProjects.createProject("x-group-x", "x-bad2-x", "1.2.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject lastProject = TestProjects.createProject("x-group-x", "x-last-x", "1.0.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        for (MavenProject child : Arrays.asList(badProject1, badProject2, lastProject)) {
+            child.setParent(rootProject);
+        }
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects())
+                .thenReturn(Arrays.asList(rootProject, badProject1, badProject2, lastProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        for (MavenProject project : Arrays.asList(rootProject, badProject1, badProject2)) {
+            ParentVersionRule projectRule = new ParentVersionRule();
+            projectRule.setCollectViolations(true);
+            Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+            projectRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        ParentVersionRule lastRule = new ParentVersionRule();
+        lastRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(lastProject);
+        try {
+            lastRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violations in 2 project(s):" +
+                    "\n    x-group-x:x-bad1-x: parent and project version mismatch: project=1.1.0; parent=1.0.0" +
+                    "\n    x-group-x:x-bad2-x: parent and project version mismatch: project=1.2.0; parent=1.0.0",
+                    exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify violations are reported together once every project has executed, when the last project in the reactor
+     * executes first, as in a parallel build; and a violation after the report fails on its own.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCollectViolationsLastProjectFirst() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject1 = TestProjects.createProject("x-group-x", "x-bad1-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject badProject2 = TestProjects.createProject("x-group-x", "x-bad2-x", "1.2.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject lastProject = TestProjects.createProject("x-group-x", "x-last-x", "1.0.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject lateProject = TestProjects.createProject("x-group-x", "x-late-x", "1.3.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        for (MavenProject child : Arrays.asList(badProject1, badProject2, lastProject, lateProject)) {
+            child.setParent(rootProject);
+        }
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects())
+                .thenReturn(Arrays.asList(rootProject, badProject1, badProject2, lastProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        for (MavenProject project : Arrays.asList(lastProject, rootProject, badProject1)) {
+            ParentVersionRule projectRule = new ParentVersionRule();
+            projectRule.setCollectViolations(true);
+            Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+            projectRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        ParentVersionRule finalRule = new ParentVersionRule();
+        finalRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject2);
+        try {
+            finalRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violations in 2 project(s):" +
+                    "\n    x-group-x:x-bad1-x: parent and project version mismatch: project=1.1.0; parent=1.0.0" +
+                    "\n    x-group-x:x-bad2-x: parent and project version mismatch: project=1.2.0; parent=1.0.0",
+                    exc.getMessage());
+        }
+
+        ParentVersionRule repeatRule = new ParentVersionRule();
+        repeatRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject1);
+        repeatRule.execute(this.mockEnforcerRuleHelper);
+
+        ParentVersionRule lateRule = new ParentVersionRule();
+        lateRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(lateProject);
+        try {
+            lateRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violation in x-group-x:x-late-x after the violations of the build were " +
+                    "reported: parent and project version mismatch: project=1.3.0; parent=1.0.0", exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify violations are held back until the last project in the reactor executes the rule, and the build session
+     * is left alone: neither the execution listener of the request nor the result of the session is touched.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCollectViolationsLastProject() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject = TestProjects.createProject("x-group-x", "x-bad-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject lastProject = TestProjects.createProject("x-group-x", "x-last-x", "1.0.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        badProject.setParent(rootProject);
+        lastProject.setParent(rootProject);
+
+        MavenExecutionRequest mockRequest = Mockito.mock(MavenExecutionRequest.class);
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getRequest()).thenReturn(mockRequest);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, badProject, lastProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        for (MavenProject project : Arrays.asList(lastProject, badProject)) {
+            ParentVersionRule projectRule = new ParentVersionRule();
+            projectRule.setCollectViolations(true);
+            Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+            projectRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        ParentVersionRule finalRule = new ParentVersionRule();
+        finalRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(rootProject);
+        try {
+            finalRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violations in 1 project(s):" +
+                    "\n    x-group-x:x-bad-x: parent and project version mismatch: project=1.1.0; parent=1.0.0",
+                    exc.getMessage());
+        }
+
+        Mockito.verifyZeroInteractions(mockRequest);
+        Mockito.verify(mockSession, Mockito.never()).getResult();
+    }
+
+    /**
+     * Verify violations are reported immediately, without a session to collect them in.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCollectViolationsWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.1.0", "1.1.0");
+        this.rule.setCollectViolations(true);
+
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.0.0; parent=1.1.0", exc.getMessage());
+        }
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+    }
+
+    /**
+     * Verify reactor validation reports all violations on the first execution, and only once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReactorValidationCollectViolations() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject1 = TestProjects.createProject("x-group-x", "x-bad1-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        MavenProject badProject2 = TestProjects.createProject("x-group-x", "x-bad2-x", "1.2.0", "x-group-x",
+                "x-root-x", "1.0.0");
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, badProject1, badProject2));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        this.rule.setReactorValidation(true);
+        this.rule.setCollectViolations(true);
+
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(rootProject);
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violations in 2 project(s):" +
+                    "\n    x-group-x:x-bad1-x: parent and project version mismatch: project=1.1.0; parent=1.0.0" +
+                    "\n    x-group-x:x-bad2-x: parent and project version mismatch: project=1.2.0; parent=1.0.0",
+                    exc.getMessage());
+        }
+
+        ParentVersionRule badRule = new ParentVersionRule();
+        badRule.setReactorValidation(true);
+        badRule.setCollectViolations(true);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject1);
+        badRule.execute(this.mockEnforcerRuleHelper);
+    }
+
+    /**
+     * Verify the getters and setters for metrics and metricsFile.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSetMetrics() throws Exception {
+        assertFalse(rule.isMetrics());
+        assertNull(rule.getMetricsFile());
+
+        File metricsFile = new File("x-metrics-x.json");
+        this.rule.setMetrics(true);
+        this.rule.setMetricsFile(metricsFile);
+        assertTrue(rule.isMetrics());
+        assertSame(metricsFile, rule.getMetricsFile());
+    }
+
+    /**
+     * Verify metrics, counting every evaluation, are collected across the executions of the build, and reported once
+     * every project has executed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteMetrics() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject = TestProjects.createProject("x-group-x", "x-bad-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        badProject.setParent(rootProject);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, badProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        File metricsFile = new File(this.temporaryFolder.getRoot(), "metrics/metrics.json");
+
+        this.rule.setMetrics(true);
+        this.rule.setMetricsFile(metricsFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(rootProject);
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog, Mockito.never()).info(Mockito.any(CharSequence.class));
+        assertFalse(metricsFile.exists());
+
+        ParentVersionRule badRule = new ParentVersionRule();
+        badRule.setMetrics(true);
+        badRule.setMetricsFile(metricsFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject);
+        try {
+            badRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+
+        RuleMetrics metrics = BuildSessionState.get(mockSession).getMetrics();
+        assertEquals(2, metrics.getExecutions());
+        assertEquals(4, metrics.getEvaluations());
+        assertEquals(0, metrics.getIgnoreHits());
+        assertEquals(2, metrics.getIgnoreMisses());
+        assertEquals(0, metrics.getCacheHits());
+        assertEquals(1, metrics.getViolations());
+
+        Mockito.verify(this.mockLog, Mockito.times(1)).info(metrics.toSummary());
+
+        String json = new String(Files.readAllBytes(metricsFile.toPath()), "UTF-8");
+        assertEquals(metrics.toJson(), json);
+        assertTrue(json.contains("\"violations\":1"));
+    }
+
+    /**
+     * Verify metrics are reported once, after the last project to execute, even when the last project in the reactor
+     * executes first.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteMetricsOutOfOrder() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject childProject = TestProjects.createProject("x-group-x", "x-child-x", "1.0.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        childProject.setParent(rootProject);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, childProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        for (MavenProject project : Arrays.asList(childProject, rootProject)) {
+            Mockito.verify(this.mockLog, Mockito.never()).info(Mockito.any(CharSequence.class));
+
+            ParentVersionRule projectRule = new ParentVersionRule();
+            projectRule.setMetrics(true);
+            Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+            projectRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        RuleMetrics metrics = BuildSessionState.get(mockSession).getMetrics();
+        assertEquals(2, metrics.getExecutions());
+        assertEquals(4, metrics.getEvaluations());
+        Mockito.verify(this.mockLog, Mockito.times(1)).info(metrics.toSummary());
+    }
+
+    /**
+     * Verify only the projects whose pom, or the pom of an ancestor, changed are validated, and the rest are skipped.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteChangedModulesOnly() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        File root = this.temporaryFolder.getRoot();
+
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        rootProject.setFile(new File(root, "pom.xml"));
+        MavenProject unchangedProject = TestProjects.createProject("x-group-x", "x-unchanged-x", "1.1.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        unchangedProject.setFile(new File(root, "unchanged/pom.xml"));
+        unchangedProject.setParent(rootProject);
+        MavenProject changedProject = TestProjects.createProject("x-group-x", "x-changed-x", "1.1.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        changedProject.setFile(new File(root, "changed/pom.xml"));
+        changedProject.setParent(rootProject);
+
+        File listFile = this.temporaryFolder.newFile("changed-files.txt");
+        Files.write(listFile.toPath(), "changed/pom.xml\nchanged/src/Main.java\n".getBytes("UTF-8"));
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getExecutionRootDirectory()).thenReturn(root.getPath());
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        this.rule.setChangedFilesList(listFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(unchangedProject);
+        this.rule.execute(this.mockEnforcerRuleHelper);
+        Mockito.verify(this.mockLog).debug("skipping this artifact; neither its pom nor an ancestor pom changed");
+
+        ParentVersionRule changedRule = new ParentVersionRule();
+        changedRule.setChangedFilesList(listFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(changedProject);
+        try {
+            changedRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+
+        Mockito.verify(this.mockLog).debug("found 2 changed files from list=" + listFile.getAbsolutePath());
+        Mockito.verify(mockSession, Mockito.times(1)).getExecutionRootDirectory();
+    }
+
+    /**
+     * Verify collected violations of the reactor leave out the unchanged projects.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteChangedModulesOnlyReactorValidation() throws Exception {
+        File root = this.temporaryFolder.getRoot();
+
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        rootProject.setFile(new File(root, "pom.xml"));
+        MavenProject unchangedProject = TestProjects.createProject("x-group-x", "x-unchanged-x", "1.1.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        unchangedProject.setFile(new File(root, "unchanged/pom.xml"));
+        unchangedProject.setParent(rootProject);
+        MavenProject changedProject = TestProjects.createProject("x-group-x", "x-changed-x", "1.1.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        changedProject.setFile(new File(root, "changed/pom.xml"));
+        changedProject.setParent(rootProject);
+
+        File listFile = this.temporaryFolder.newFile("changed-files.txt");
+        Files.write(listFile.toPath(), new File(root, "changed/pom.xml").getPath().getBytes("UTF-8"));
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects())
+                .thenReturn(Arrays.asList(rootProject, unchangedProject, changedProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        this.rule.setReactorValidation(true);
+        this.rule.setCollectViolations(true);
+        this.rule.setChangedFilesList(listFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(unchangedProject);
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent version violations in 1 project(s):\n    x-group-x:x-changed-x: parent and project " +
+                    "version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+    }
+
+    /**
+     * Verify every project is validated when the changed files cannot be determined.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteChangedModulesOnlyMissingList() throws Exception {
+        MavenProject project = TestProjects.createProject("x-group-x", "x-artifact-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        project.setFile(new File(this.temporaryFolder.getRoot(), "pom.xml"));
+        project.setParent(TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null, null));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        File listFile = new File(this.temporaryFolder.getRoot(), "x-missing-x.txt");
+        this.rule.setChangedFilesList(listFile);
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+
+        Mockito.verify(this.mockLog).warn(Mockito.eq("unable to determine the changed files from list=" +
+                listFile.getAbsolutePath() + "; validating all modules"), Mockito.any(Throwable.class));
+    }
+
+    /**
+     * Verify the verdict of every project is streamed to the report, which is finished once every project executes,
+     * even when the last one fails.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReport() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject badProject = TestProjects.createProject("x-group-x", "x-bad-x", "1.1.0", "x-group-x",
+                "x-root-x", "1.0.0");
+        badProject.setParent(rootProject);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, badProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        File reportFile = new File(this.temporaryFolder.getRoot(), "reports/parent-version.json");
+        File workingFile = new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX);
+
+        this.rule.setReportFile(reportFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(rootProject);
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        assertFalse(reportFile.exists());
+        assertEquals(1, Files.readAllLines(workingFile.toPath(), Charset.forName("UTF-8")).size());
+
+        ParentVersionRule badRule = new ParentVersionRule();
+        badRule.setReportFile(reportFile);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(badProject);
+        try {
+            badRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.1.0; parent=1.0.0", exc.getMessage());
+        }
+
+        assertFalse(workingFile.exists());
+        Mockito.verify(this.mockLog).info("wrote the parent version report of 2 project(s) to " + reportFile);
+
+        String report = new String(Files.readAllBytes(reportFile.toPath()), "UTF-8");
+        assertTrue(report.startsWith("[\n{\"execution\":\"default\",\"groupId\":\"x-group-x\"," +
+                "\"artifactId\":\"x-root-x\",\"version\":\"1.0.0\",\"parent\":null,\"status\":\"MISSING_PARENT\","));
+        assertTrue(report.contains("},\n{\"execution\":\"default\",\"groupId\":\"x-group-x\"," +
+                "\"artifactId\":\"x-bad-x\",\"version\":\"1.1.0\"," +
+                "\"parent\":{\"groupId\":\"x-group-x\",\"artifactId\":\"x-root-x\",\"version\":\"1.0.0\"," +
+                "\"effectiveVersion\":\"1.0.0\"},\"status\":\"FAILED\",\"reason\":\"parent and project version " +
+                "mismatch: project=1.1.0; parent=1.0.0\",\"pom\":null,\"time\":"));
+        assertTrue(report.endsWith("}\n]\n"));
+    }
+
+    /**
+     * Verify the report is finished once every project has executed, even when the last project in the reactor executes
+     * first, and a verdict recorded after the report is written, such as by a later execution of the enforcer, is
+     * logged rather than silently dropped.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReportOutOfOrder() throws Exception {
+        MavenProject rootProject = TestProjects.createProject("x-group-x", "x-root-x", "1.0.0", null, null,
+                null);
+        MavenProject childProject = TestProjects.createProject("x-group-x", "x-child-x", "1.0.0",
+                "x-group-x", "x-root-x", "1.0.0");
+        childProject.setParent(rootProject);
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getSortedProjects()).thenReturn(Arrays.asList(rootProject, childProject));
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${mojoExecution}"))
+                .thenReturn(new MojoExecution(new Plugin(), "enforce", "x-first-x"));
+
+        File reportFile = new File(this.temporaryFolder.getRoot(), "parent-version.json");
+        File workingFile = new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX);
+
+        for (MavenProject project : Arrays.asList(childProject, rootProject)) {
+            assertFalse(reportFile.exists());
+
+            ParentVersionRule projectRule = new ParentVersionRule();
+            projectRule.setReportFile(reportFile);
+            Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project}")).thenReturn(project);
+            projectRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        assertFalse(workingFile.exists());
+        Mockito.verify(this.mockLog).info("wrote the parent version report of 2 project(s) to " + reportFile);
+
+        String report = new String(Files.readAllBytes(reportFile.toPath()), "UTF-8");
+        assertTrue(report.startsWith("[\n{\"execution\":\"x-first-x\",\"groupId\":\"x-group-x\"," +
+                "\"artifactId\":\"x-child-x\","));
+        assertTrue(report.contains("},\n{\"execution\":\"x-first-x\",\"groupId\":\"x-group-x\"," +
+                "\"artifactId\":\"x-root-x\","));
+
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${mojoExecution}"))
+                .thenReturn(new MojoExecution(new Plugin(), "enforce", "x-second-x"));
+
+        ParentVersionRule lateRule = new ParentVersionRule();
+        lateRule.setReportFile(reportFile);
+        lateRule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).warn("the parent version report " + reportFile + " was already written; it " +
+                "does not include the verdict of x-group-x:x-root-x");
+        assertEquals(report, new String(Files.readAllBytes(reportFile.toPath()), "UTF-8"));
+    }
+
+    /**
+     * Verify no report is written without a session.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteReportWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        File reportFile = new File(this.temporaryFolder.getRoot(), "parent-version.json");
+
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.setReportFile(reportFile);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+        assertFalse(new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX).exists());
+    }
+
+    /**
+     * Verify no metrics are collected without a session.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteMetricsWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "1.0.0", "1.0.0", "1.0.0");
+        this.rule.setMetrics(true);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+    }
+
+    /**
+     * Verify CI-friendly placeholders in the versions are resolved from the properties of the session, once per
+     * session, before validation.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCiFriendlyVersions() throws Exception {
+        this.initProject("x-group-x", "x-artifact-x", "${revision}${changelist}", "1.2.0-SNAPSHOT",
+                "${revision}${changelist}");
+
+        Properties userProperties = new Properties();
+        userProperties.setProperty("revision", "1.2.0");
+        userProperties.setProperty("changelist", "-SNAPSHOT");
+
+        MavenSession mockSession = Mockito.mock(MavenSession.class);
+        Mockito.when(mockSession.getUserProperties()).thenReturn(userProperties);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${session}")).thenReturn(mockSession);
+
+        this.rule.execute(this.mockEnforcerRuleHelper);
+
+        ParentVersionRule otherRule = new ParentVersionRule();
+        this.initProject("x-group-x", "x-other-x", "${revision}${changelist}", "1.1.0", "${revision}${changelist}");
+        try {
+            otherRule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=1.2.0-SNAPSHOT; parent=1.1.0",
+                    exc.getMessage());
+        }
+
+        Mockito.verify(mockSession, Mockito.times(1)).getUserProperties();
+    }
+
+    /**
+     * Verify placeholders are left in place when the session is not available.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExecuteCiFriendlyVersionsWithoutSession() throws Exception {
+        Mockito.when(this.mockLog.isDebugEnabled()).thenReturn(true);
+        this.initProject("x-group-x", "x-artifact-x", "${revision}", "1.2.0", "${revision}");
+
+        try {
+            this.rule.execute(this.mockEnforcerRuleHelper);
+            fail("Missing expected exception");
+        } catch ( EnforcerRuleException exc ) {
+            assertEquals("parent and project version mismatch: project=${revision}; parent=1.2.0", exc.getMessage());
+        }
+
+        Mockito.verify(this.mockLog).debug("maven session or project not available; validating this artifact on its own");
+    }
+
+    /**
+     * Measure the memory allocated by the current thread configuring fresh rules with the given ignore list, and
+     * executing each once.
+     *
+     * @param allocationCounter allocation counter of the JVM.
+     * @param ignore the ignore list.
+     * @param iterations number of rules to configure and execute.
+     * @return the bytes allocated.
+     * @throws Exception
+     */
+    private long measureExecuteAllocation(com.sun.management.ThreadMXBean allocationCounter, List<String> ignore,
+                                          int iterations) throws Exception {
+
+        ParentVersionRule[] rules = new ParentVersionRule[iterations];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            rules[iteration] = new ParentVersionRule();
+        }
+
+        ParentVersionRule warmupRule = new ParentVersionRule();
+        warmupRule.setIgnore(ignore);
+        warmupRule.execute(this.mockEnforcerRuleHelper);
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (ParentVersionRule iterationRule : rules) {
+            iterationRule.setIgnore(ignore);
+            iterationRule.execute(this.mockEnforcerRuleHelper);
+        }
+
+        return allocationCounter.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private List<String> createIgnoreList(int size) {
+        List<String> result = new ArrayList<>(size);
+        for (int entry = 0; entry < size; entry++) {
+            result.add("x-ignore-group-" + entry + "-x:x-ignore-artifact-" + entry + "-x");
+        }
+
+        return result;
+    }
+
+    /**
+     * Initialize test interactions to mimic a project with the given settings.
+     *
+     * @param groupId groupId of the artifact being built.
+     * @param artifactId artifactId of the artifact being built.
+     * @param version version number of the artifact being built.
+     * @param parentVersion version number of the parent being built (null = none).
+     * @param parentVersionInPom version number of the parent specified in the artifact's pom file (null = none).
+     * @throws Exception
+     */
+    private void initProject(String groupId, String artifactId, String version, String parentVersion,
+                             String parentVersionInPom) throws Exception {
+
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.version}")).thenReturn(version);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.parent.version}")).thenReturn(parentVersion);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.parentArtifact.version}"))
+                .thenReturn(parentVersionInPom);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.artifact.artifactId}")).thenReturn(artifactId);
+        Mockito.when(this.mockEnforcerRuleHelper.evaluate("${project.artifact.groupId}")).thenReturn(groupId);
+    }
+
+    /**
+     * Enforcer rule helper that answers expressions from a map, without allocating on each call.
+     */
+    private static class FixedEnforcerRuleHelper implements EnforcerRuleHelper {
+
+        private final Map<String, Object> values = new HashMap<>();
+        private final Log log;
+
+        public FixedEnforcerRuleHelper(Log log) {
+            this.log = log;
+        }
+
+        public Object evaluate(String expression) {
+            return this.values.get(expression);
+        }
+
+        public File alignToBaseDirectory(File file) {
+            return file;
+        }
+
+        public Log getLog() {
+            return this.log;
+        }
+
+        public Object getComponent(Class clazz) throws ComponentLookupException {
+            return null;
+        }
+
+        public Object getComponent(String role) throws ComponentLookupException {
+            return null;
+        }
+
+        public Object getComponent(String role, String hint) throws ComponentLookupException {
+            return null;
+        }
+
+        public Map getComponentMap(String role) throws ComponentLookupException {
+            return null;
+        }
+
+        public List getComponentList(String role) throws ComponentLookupException {
+            return null;
+        }
+
+        public PlexusContainer getContainer() {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
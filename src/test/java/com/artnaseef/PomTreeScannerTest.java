@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the PomTreeScanner.
+ */
+public class PomTreeScannerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private Log mockLog;
+    private File root;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.pool = new ForkJoinPool(2);
+        this.mockLog = Mockito.mock(Log.class);
+        this.root = this.temporaryFolder.getRoot();
+
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child");
+        this.writePom("child/pom.xml", "x-child-x", null, "x-group-x", "x-root-x", "1.0.0");
+        this.writePom("child/target/pom.xml", "x-output-x", "1.0.0", "x-group-x", "x-root-x", "0.1.0");
+        this.writePom(".hidden/pom.xml", "x-hidden-x", "1.0.0", "x-group-x", "x-root-x", "0.1.0");
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Verify the coordinates of the poms of the modules are read, and no other poms under the directory, inheriting
+     * the group and version from the parent when not specified.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testScan() throws Exception {
+        List<MavenProject> projects = new PomTreeScanner(this.pool).scan(this.root);
+
+        assertEquals(2, projects.size());
+
+        MavenProject child = projects.get(0);
+        if (!"x-child-x".equals(child.getArtifactId())) {
+            child = projects.get(1);
+        }
+
+        assertEquals("x-group-x", child.getGroupId());
+        assertEquals("1.0.0", child.getVersion());
+        assertEquals("x-root-x", child.getModel().getParent().getArtifactId());
+        assertEquals(new File(this.root, "child/pom.xml"), child.getFile());
+    }
+
+    /**
+     * Verify more poms than fit in a single parse task are all read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testScanManyPoms() throws Exception {
+        String[] modules = new String[101];
+        modules[0] = "child";
+        for (int module = 0; module < 100; module++) {
+            modules[module + 1] = "modules/m" + module;
+            this.writePom("modules/m" + module + "/pom.xml", "x-module" + module + "-x", "1.0.0", "x-group-x",
+                    "x-root-x", "1.0.0");
+        }
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", modules);
+
+        assertEquals(102, new PomTreeScanner(this.pool).scan(this.root).size());
+    }
+
+    /**
+     * Verify a pom which is not well-formed fails the scan.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testScanMalformedPom() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child", "broken");
+        File pomFile = new File(this.root, "broken/pom.xml");
+        assertTrue(pomFile.getParentFile().mkdirs());
+        Files.write(pomFile.toPath(), "<project><groupId>".getBytes(UTF_8));
+
+        try {
+            new PomTreeScanner(this.pool).scan(this.root);
+            fail("Missing expected exception");
+        } catch (IOException ioExc) {
+            assertEquals("failed to parse " + pomFile, ioExc.getMessage());
+        }
+    }
+
+    /**
+     * Verify a module listed as the path of a pom file is read, as are modules outside the directory of their parent,
+     * and each pom is read once however many times it is listed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testScanModulePaths() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child",
+                "child/../child", "alternate/alternate-pom.xml");
+        this.writePom("alternate/alternate-pom.xml", "x-alternate-x", null, "x-group-x", "x-root-x", "1.0.0",
+                "../sibling");
+        this.writePom("sibling/pom.xml", "x-sibling-x", null, "x-group-x", "x-root-x", "1.0.0");
+
+        List<MavenProject> projects = new PomTreeScanner(this.pool).scan(this.root);
+
+        assertEquals(4, projects.size());
+        assertEquals("x-root-x", projects.get(0).getArtifactId());
+        assertEquals("x-child-x", projects.get(1).getArtifactId());
+        assertEquals("x-alternate-x", projects.get(2).getArtifactId());
+        assertEquals("x-sibling-x", projects.get(3).getArtifactId());
+        assertEquals(new File(this.root, "sibling/pom.xml"), projects.get(3).getFile());
+    }
+
+    /**
+     * Verify a listed module without a pom, and a directory without a top-level pom, fail the scan.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testScanMissingPom() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child", "missing");
+
+        try {
+            new PomTreeScanner(this.pool).scan(this.root);
+            fail("Missing expected exception");
+        } catch (IOException ioExc) {
+            assertEquals("the pom of a module listed by " + new File(this.root, "pom.xml") + " does not exist: " +
+                    new File(this.root, "missing"), ioExc.getMessage());
+        }
+
+        try {
+            new PomTreeScanner(this.pool).scan(new File(this.root, "child/target/x-none-x"));
+            fail("Missing expected exception");
+        } catch (IOException ioExc) {
+            assertEquals("no pom.xml in " + new File(this.root, "child/target/x-none-x"), ioExc.getMessage());
+        }
+    }
+
+    /**
+     * Verify the exit code and reported failures when running the scanner, with and without the ignore list.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRun() throws Exception {
+        assertEquals(1, PomTreeScanner.run(new String[]{this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).error(new File(this.root, "pom.xml") +
+                ": parent and project version mismatch: project=1.0.0; parent=7");
+
+        assertEquals(0, PomTreeScanner.run(new String[]{"--ignore", "x-root-x", this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).info("validated 2 poms; 0 failed");
+    }
+
+    /**
+     * Verify the parent versions of failing poms with a parent in the tree are rewritten with --fix, and the others
+     * still fail.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRunFix() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child", "stale");
+        this.writePom("stale/pom.xml", "x-stale-x", null, "x-group-x", "x-root-x", "0.9.0");
+        File stalePom = new File(this.root, "stale/pom.xml");
+
+        assertEquals(1, PomTreeScanner.run(new String[]{"--fix", this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).info("fixed 1 of 2 failed poms");
+        assertTrue(new String(Files.readAllBytes(stalePom.toPath()), UTF_8).contains("<version>1.0.0</version>"));
+
+        assertEquals(0, PomTreeScanner.run(new String[]{"--ignore", "x-root-x", this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).info("validated 3 poms; 0 failed");
+    }
+
+    /**
+     * Verify a copy of a module that is not listed as a module, such as one under src/it, is not read; and both of the
+     * listed modules defining the same project fail, and neither is rewritten with --fix.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRunDuplicatedPom() throws Exception {
+        this.writePom("src/it/copy/pom.xml", "x-child-x", "0.9.0", "x-group-x", "x-root-x", "0.9.0");
+        assertEquals(0, PomTreeScanner.run(new String[]{"--ignore", "x-root-x", this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).info("validated 2 poms; 0 failed");
+
+        this.writePom("pom.xml", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7", "child", "copy");
+        this.writePom("copy/pom.xml", "x-child-x", "0.9.0", "x-group-x", "x-root-x", "0.9.0");
+        File copyPom = new File(this.root, "copy/pom.xml");
+
+        assertEquals(1, PomTreeScanner.run(new String[]{"--ignore", "x-root-x", "--fix", this.root.getPath()},
+                this.mockLog));
+        Mockito.verify(this.mockLog).info("validated 3 poms; 2 failed");
+        Mockito.verify(this.mockLog).info("fixed 0 of 2 failed poms");
+        assertTrue(new String(Files.readAllBytes(copyPom.toPath()), UTF_8).contains("<version>0.9.0</version>"));
+    }
+
+    /**
+     * Verify CI-friendly placeholders are resolved from the properties of the root pom.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRunCiFriendlyVersions() throws Exception {
+        File ciRoot = this.temporaryFolder.newFolder("x-ci-x");
+        String rootPom = "<project>\n" +
+                "  <groupId>x-group-x</groupId>\n" +
+                "  <artifactId>x-root-x</artifactId>\n" +
+                "  <version>${revision}${changelist}</version>\n" +
+                "  <properties>\n" +
+                "    <revision>1.0.0</revision>\n" +
+                "    <changelist>-SNAPSHOT</changelist>\n" +
+                "    <x-other-x>x-value-x</x-other-x>\n" +
+                "  </properties>\n" +
+                "  <modules>\n" +
+                "    <module>child</module>\n" +
+                "  </modules>\n" +
+                "</project>\n";
+        Files.write(new File(ciRoot, "pom.xml").toPath(), rootPom.getBytes(UTF_8));
+
+        File childPom = new File(ciRoot, "child/pom.xml");
+        assertTrue(childPom.getParentFile().mkdirs());
+        String childContent = "<project>\n" +
+                "  <parent>\n" +
+                "    <groupId>x-group-x</groupId>\n" +
+                "    <artifactId>x-root-x</artifactId>\n" +
+                "    <version>1.0.0-SNAPSHOT</version>\n" +
+                "  </parent>\n" +
+                "  <artifactId>x-child-x</artifactId>\n" +
+                "</project>\n";
+        Files.write(childPom.toPath(), childContent.getBytes(UTF_8));
+
+        Properties properties = PomTreeScanner.readCiFriendlyProperties(new File(ciRoot, "pom.xml"));
+        assertEquals(2, properties.size());
+        assertEquals("1.0.0", properties.getProperty("revision"));
+        assertEquals("-SNAPSHOT", properties.getProperty("changelist"));
+
+        assertEquals(0, PomTreeScanner.run(new String[]{ciRoot.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).info("validated 2 poms; 0 failed");
+    }
+
+    /**
+     * Verify a pom fails with --check-parent-resolvable when its parent is neither in the tree nor in the local
+     * repository, and passes once the parent pom is installed; parents in the tree need not be installed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRunCheckParentResolvable() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "7", "x-external-group-x", "x-external-x", "7", "child");
+        this.writePom("child/pom.xml", "x-child-x", null, "x-group-x", "x-root-x", "7");
+        File repository = this.temporaryFolder.newFolder("x-repository-x");
+
+        assertEquals(0, PomTreeScanner.run(new String[]{this.root.getPath()}, this.mockLog));
+        assertEquals(1, PomTreeScanner.run(new String[]{"--check-parent-resolvable", "--local-repository",
+                repository.getPath(), this.root.getPath()}, this.mockLog));
+        Mockito.verify(this.mockLog).error(new File(this.root, "pom.xml") + ": parent " +
+                "x-external-group-x:x-external-x:7 is not in the tree, and not in the local repository " + repository);
+
+        File parentPom = new File(repository, "x-external-group-x/x-external-x/7/x-external-x-7.pom");
+        assertTrue(parentPom.getParentFile().mkdirs());
+        assertTrue(parentPom.createNewFile());
+
+        assertEquals(0, PomTreeScanner.run(new String[]{"--check-parent-resolvable", "--local-repository",
+                repository.getPath(), this.root.getPath()}, this.mockLog));
+    }
+
+    /**
+     * Verify usage errors.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRunUsage() throws Exception {
+        assertEquals(2, PomTreeScanner.run(new String[0], this.mockLog));
+        assertEquals(2, PomTreeScanner.run(new String[]{"--x-unknown-x", this.root.getPath()}, this.mockLog));
+        assertEquals(2, PomTreeScanner.run(new String[]{"--fix", "--watch", this.root.getPath()}, this.mockLog));
+        assertEquals(2, PomTreeScanner.run(new String[]{"--local-repository", this.root.getPath(),
+                this.root.getPath()}, this.mockLog));
+        assertEquals(2, PomTreeScanner.run(new String[]{"--check-parent-resolvable", "--watch", this.root.getPath()},
+                this.mockLog));
+        assertEquals(2, PomTreeScanner.run(new String[]{new File(this.root, "x-missing-x").getPath()},
+                this.mockLog));
+    }
+
+    /**
+     * Verify main returns when all poms pass, and throws when any fails, rather than exiting the JVM.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMain() throws Exception {
+        PomTreeScanner.main(new String[]{"--ignore", "x-root-x", this.root.getPath()});
+
+        try {
+            PomTreeScanner.main(new String[]{this.root.getPath()});
+            fail("Missing expected exception");
+        } catch (EnforcerRuleException exc) {
+            assertEquals("parent version violations found; see the errors above", exc.getMessage());
+        }
+
+        try {
+            PomTreeScanner.main(new String[0]);
+            fail("Missing expected exception");
+        } catch (EnforcerRuleException exc) {
+            assertEquals("unable to validate the poms; see the errors above", exc.getMessage());
+        }
+    }
+
+    private void writePom(String path, String artifactId, String version, String parentGroupId,
+                          String parentArtifactId, String parentVersion, String... modules) throws Exception {
+        StringBuilder content = new StringBuilder();
+        content.append("<project>\n");
+        content.append("  <parent>\n");
+        content.append("    <groupId>").append(parentGroupId).append("</groupId>\n");
+        content.append("    <artifactId>").append(parentArtifactId).append("</artifactId>\n");
+        content.append("    <version>").append(parentVersion).append("</version>\n");
+        content.append("  </parent>\n");
+        if (!"x-external-x".equals(parentArtifactId)) {
+            content.append("  <dependencies><dependency><groupId>x-dep-x</groupId></dependency></dependencies>\n");
+        } else {
+            content.append("  <groupId>x-group-x</groupId>\n");
+        }
+        content.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+        if (version != null) {
+            content.append("  <version>").append(version).append("</version>\n");
+        }
+        if (modules.length > 0) {
+            content.append("  <modules>\n");
+            for (String module : modules) {
+                content.append("    <module>").append(module).append("</module>\n");
+            }
+            content.append("  </modules>\n");
+        }
+        content.append("</project>\n");
+
+        File pomFile = new File(this.root, path);
+        pomFile.getParentFile().mkdirs();
+        Files.write(pomFile.toPath(), content.toString().getBytes(UTF_8));
+    }
+}
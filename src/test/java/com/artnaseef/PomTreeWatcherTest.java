@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the PomTreeWatcher.
+ */
+public class PomTreeWatcherTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private Log mockLog;
+    private File root;
+    private PomTreeWatcher watcher;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.pool = new ForkJoinPool(2);
+        this.mockLog = Mockito.mock(Log.class);
+        this.root = this.temporaryFolder.getRoot();
+
+        this.writePom("pom.xml", "x-root-x", "1.0.0", null, "child");
+        this.writePom("child/pom.xml", "x-child-x", null, "1.0.0", "grandchild");
+        this.writePom("child/grandchild/pom.xml", "x-grandchild-x", null, "1.0.0");
+
+        this.watcher = new PomTreeWatcher(this.root, new ParentVersionRule(), this.pool, this.mockLog, 50);
+    }
+
+    @After
+    public void cleanupTest() throws Exception {
+        this.watcher.close();
+        this.pool.shutdown();
+    }
+
+    /**
+     * Verify the initial scan validates the whole module tree, and no pom outside of it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStart() throws Exception {
+        this.writePom("pom.xml", "x-root-x", "1.0.0", null, "child", "stale");
+        this.writePom("stale/pom.xml", "x-stale-x", null, "0.9.0");
+        this.writePom("src/it/copy/pom.xml", "x-copy-x", null, "0.9.0");
+
+        this.watcher.start();
+
+        Map<File, String> violations = this.watcher.getViolations();
+        assertEquals(1, violations.size());
+        assertEquals("parent and project version mismatch: project=0.9.0; parent=1.0.0",
+                violations.get(new File(this.root, "stale/pom.xml")));
+        Mockito.verify(this.mockLog).error(new File(this.root, "stale/pom.xml") +
+                ": parent and project version mismatch: project=0.9.0; parent=1.0.0");
+    }
+
+    /**
+     * Verify a change to a parent revalidates its in-tree children, and the violations are updated when the children
+     * are fixed in turn.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateParentVersion() throws Exception {
+        this.watcher.start();
+        assertTrue(this.watcher.getViolations().isEmpty());
+
+        this.writePom("pom.xml", "x-root-x", "2.0.0", null, "child");
+        this.watcher.update(Collections.singleton(this.path("pom.xml")));
+
+        File childPom = new File(this.root, "child/pom.xml");
+        File grandchildPom = new File(this.root, "child/grandchild/pom.xml");
+        assertEquals(Collections.singleton(childPom), this.watcher.getViolations().keySet());
+        assertEquals("parent and project version mismatch: project=1.0.0; parent=2.0.0",
+                this.watcher.getViolations().get(childPom));
+
+        this.writePom("child/pom.xml", "x-child-x", null, "2.0.0", "grandchild");
+        this.watcher.update(Collections.singleton(this.path("child/pom.xml")));
+
+        assertEquals(Collections.singleton(grandchildPom), this.watcher.getViolations().keySet());
+        Mockito.verify(this.mockLog).info(childPom + ": fixed");
+
+        this.writePom("child/grandchild/pom.xml", "x-grandchild-x", null, "2.0.0");
+        this.watcher.update(Collections.singleton(this.path("child/grandchild/pom.xml")));
+
+        assertTrue(this.watcher.getViolations().isEmpty());
+    }
+
+    /**
+     * Verify a pom which cannot be parsed is reported until it is fixed, deleted poms and directories are dropped, and
+     * a module whose pom is deleted is reported until it is no longer listed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateMalformedAndDeleted() throws Exception {
+        this.watcher.start();
+
+        File childPom = new File(this.root, "child/pom.xml");
+        Files.write(childPom.toPath(), "<project><parent>".getBytes(UTF_8));
+        this.watcher.update(Collections.singleton(childPom.toPath()));
+
+        assertEquals(Collections.singleton(childPom), this.watcher.getViolations().keySet());
+        assertTrue(this.watcher.getViolations().get(childPom).startsWith("unable to parse the pom: "));
+
+        this.writePom("child/pom.xml", "x-child-x", null, "1.0.0", "grandchild");
+        this.writePom("child/grandchild/pom.xml", "x-grandchild-x", "1.0.0", "0.9.0");
+        this.watcher.update(new LinkedHashSet<>(Arrays.asList(this.path("child/pom.xml"),
+                this.path("child/grandchild/pom.xml"))));
+        assertEquals(Collections.singleton(new File(this.root, "child/grandchild/pom.xml")),
+                this.watcher.getViolations().keySet());
+        Mockito.verify(this.mockLog).info(childPom + ": fixed");
+
+        Files.delete(this.path("child/grandchild/pom.xml"));
+        Files.delete(this.path("child/grandchild"));
+        Files.delete(this.path("child/pom.xml"));
+        Files.delete(this.path("child"));
+        this.watcher.update(Collections.singleton(this.path("child")));
+
+        File childModule = new File(this.root, "child");
+        assertEquals(Collections.singleton(childModule), this.watcher.getViolations().keySet());
+        assertEquals("the pom of a listed module does not exist", this.watcher.getViolations().get(childModule));
+        Mockito.verify(this.mockLog).info(new File(this.root, "child/grandchild/pom.xml") + ": fixed");
+
+        this.writePom("pom.xml", "x-root-x", "1.0.0", null);
+        this.watcher.update(Collections.singleton(this.path("pom.xml")));
+
+        assertTrue(this.watcher.getViolations().isEmpty());
+    }
+
+    /**
+     * Verify a new directory is searched for poms, and watched, and its modules validated once listed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateNewDirectory() throws Exception {
+        this.watcher.start();
+
+        this.writePom("added/pom.xml", "x-added-x", null, "1.0.0", "nested");
+        this.writePom("added/nested/pom.xml", "x-nested-x", null, "0.9.0");
+        this.writePom("added/target/pom.xml", "x-output-x", null, "0.9.0");
+        this.watcher.update(new LinkedHashSet<>(Arrays.asList(this.path("added"))));
+
+        assertTrue(this.watcher.getViolations().isEmpty());
+
+        this.writePom("pom.xml", "x-root-x", "1.0.0", null, "child", "added");
+        this.watcher.update(Collections.singleton(this.path("pom.xml")));
+
+        assertEquals(Collections.singleton(new File(this.root, "added/nested/pom.xml")),
+                this.watcher.getViolations().keySet());
+    }
+
+    /**
+     * Verify edits on disk are picked up by the watch service, batched, and revalidated.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWatch() throws Exception {
+        this.watcher.start();
+
+        Thread watchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    watcher.watch();
+                } catch (Exception exc) {
+                    // Ends the thread.
+                }
+            }
+        });
+        watchThread.start();
+
+        this.writePom("child/pom.xml", "x-child-x", null, "0.9.0", "grandchild");
+        this.writePom("child/grandchild/pom.xml", "x-grandchild-x", null, "0.8.0");
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((this.watcher.getViolations().size() < 2) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        this.watcher.close();
+        watchThread.join(10000);
+
+        assertEquals(2, this.watcher.getViolations().size());
+        assertFalse(watchThread.isAlive());
+    }
+
+    private Path path(String relativePath) {
+        return new File(this.root, relativePath).toPath();
+    }
+
+    private void writePom(String path, String artifactId, String version, String parentVersion, String... modules)
+            throws Exception {
+        StringBuilder content = new StringBuilder();
+        content.append("<project>\n");
+        if (parentVersion != null) {
+            content.append("  <parent>\n");
+            content.append("    <groupId>x-group-x</groupId>\n");
+            content.append("    <artifactId>").append(this.parentOf(path)).append("</artifactId>\n");
+            content.append("    <version>").append(parentVersion).append("</version>\n");
+            content.append("  </parent>\n");
+        } else {
+            content.append("  <groupId>x-group-x</groupId>\n");
+        }
+        content.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+        if (version != null) {
+            content.append("  <version>").append(version).append("</version>\n");
+        }
+        if (modules.length > 0) {
+            content.append("  <modules>\n");
+            for (String module : modules) {
+                content.append("    <module>").append(module).append("</module>\n");
+            }
+            content.append("  </modules>\n");
+        }
+        content.append("</project>\n");
+
+        File pomFile = new File(this.root, path);
+        pomFile.getParentFile().mkdirs();
+        Files.write(pomFile.toPath(), content.toString().getBytes(UTF_8));
+    }
+
+    private String parentOf(String path) {
+        if (path.startsWith("child/grandchild/")) {
+            return "x-child-x";
+        }
+        if (path.startsWith("added/nested/")) {
+            return "x-added-x";
+        }
+
+        return "x-root-x";
+    }
+}
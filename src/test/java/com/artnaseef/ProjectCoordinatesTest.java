@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the ProjectCoordinates.
+ */
+public class ProjectCoordinatesTest {
+
+    /**
+     * Verify reading the coordinates of a project with a parent.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromProjectWithParent() throws Exception {
+        MavenProject parentProject = TestProjects.createProject("x-group-x", "x-parent-x", "1.1.0", null,
+                null, null);
+        MavenProject project = TestProjects.createProject(null, "x-artifact-x", null, "x-group-x",
+                "x-parent-x", "1.2.0");
+        project.setParent(parentProject);
+
+        ProjectCoordinates coordinates = ProjectCoordinates.fromProject(project);
+
+        assertEquals("x-group-x", coordinates.getGroupId());
+        assertEquals("x-artifact-x", coordinates.getArtifactId());
+        assertEquals("1.2.0", coordinates.getVersion());
+        assertEquals("1.1.0", coordinates.getParentVersion());
+        assertEquals("1.2.0", coordinates.getParentArtifactVersion());
+        assertTrue(coordinates.hasParent());
+    }
+
+    /**
+     * Verify reading the coordinates of a project without a parent uses the defaults.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFromProjectWithoutParent() throws Exception {
+        MavenProject project = TestProjects.createProject("x-group-x", "x-artifact-x", "1.0.0", null, null,
+                null);
+
+        ProjectCoordinates coordinates = ProjectCoordinates.fromProject(project);
+
+        assertEquals(ProjectCoordinates.UNKNOWN_PARENT_VERSION, coordinates.getParentVersion());
+        assertEquals(ProjectCoordinates.UNKNOWN_PARENT_VERSION_FROM_POM, coordinates.getParentArtifactVersion());
+        assertFalse(coordinates.hasParent());
+        assertEquals("x-group-x:x-artifact-x:1.0.0;parent=unknown-project-parent-version;" +
+                "parentInPom=unknown-parent-version-from-pom", coordinates.toString());
+    }
+}
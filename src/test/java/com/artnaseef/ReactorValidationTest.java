@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static com.artnaseef.TestProjects.createProject;
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the ReactorValidation.
+ */
+public class ReactorValidationTest {
+
+    private ParentVersionRule rule;
+    private Log mockLog;
+
+    private MavenProject rootProject;
+    private MavenProject childProject;
+    private MavenProject grandchildProject;
+
+    /**
+     * Setup common test data and interactions.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setupTest() throws Exception {
+        this.rule = new ParentVersionRule();
+        this.mockLog = Mockito.mock(Log.class);
+
+        this.rootProject = createProject("x-group-x", "x-root-x", "1.0.0", "x-external-group-x", "x-external-x", "7");
+        this.childProject = createProject("x-group-x", "x-child-x", "1.0.0", "x-group-x", "x-root-x", "1.0.0");
+        this.grandchildProject = createProject("x-group-x", "x-grandchild-x", "1.0.0", "x-group-x", "x-child-x",
+                "1.0.0");
+    }
+
+    /**
+     * Verify all projects pass when their versions match those of their parents in the reactor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateAllPass() throws Exception {
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, this.childProject, this.grandchildProject), this.mockLog);
+
+        assertEquals(3, validation.size());
+        assertSame(Verdict.IGNORED, validation.getVerdict(this.rootProject));
+        assertSame(Verdict.PASSED, validation.getVerdict(this.childProject));
+        assertSame(Verdict.PASSED, validation.getVerdict(this.grandchildProject));
+        assertTrue(validation.getFailedVerdicts().isEmpty());
+    }
+
+    /**
+     * Verify the versions of the projects in the reactor, with CI-friendly placeholders resolved.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetReactorVersion() throws Exception {
+        MavenProject ciProject = createProject("x-group-x", "x-ci-x", "${revision}", "x-group-x", "x-root-x", "1.0.0");
+        Properties properties = new Properties();
+        properties.setProperty("revision", "1.0.0");
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule, Arrays.asList(this.rootProject,
+                ciProject), CiFriendlyVersions.fromProperties(properties), this.mockLog);
+
+        assertEquals("1.0.0", validation.getReactorVersion("x-group-x", "x-root-x"));
+        assertEquals("1.0.0", validation.getReactorVersion("x-group-x", "x-ci-x"));
+        assertNull(validation.getReactorVersion("x-group-x", "x-missing-x"));
+        assertNull(validation.getReactorVersion("x-external-group-x", "x-external-x"));
+    }
+
+    /**
+     * Verify the verdict when the version of a project does not match its parent from outside the reactor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateExternalParentMismatch() throws Exception {
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Collections.singletonList(this.rootProject), this.mockLog);
+
+        assertEquals("parent and project version mismatch: project=1.0.0; parent=7",
+                validation.getVerdict(this.rootProject).getReason());
+    }
+
+    /**
+     * Verify the verdict when the parent version in the pom differs from the version of the parent in the reactor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateReactorParentMismatch() throws Exception {
+        MavenProject driftedProject = createProject("x-group-x", "x-drifted-x", "1.0.0", "x-group-x", "x-child-x",
+                "0.9.0");
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, this.childProject, driftedProject), this.mockLog);
+
+        assertEquals("actual parent version does not match the one listed in the pom: actual parent version=1.0.0; " +
+                "version from pom=0.9.0", validation.getVerdict(driftedProject).getReason());
+        assertEquals(Collections.singletonMap("x-group-x:x-drifted-x", validation.getVerdict(driftedProject)),
+                validation.getFailedVerdicts());
+    }
+
+    /**
+     * Verify a project whose pom references a version of a reactor parent other than the one in the reactor gets the
+     * same verdict as when it is validated on its own, against the parent maven resolved for it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateMatchesSingleProjectValidation() throws Exception {
+        MavenProject driftedProject = createProject("x-group-x", "x-drifted-x", "1.0.0", "x-group-x", "x-child-x",
+                "0.9.0");
+        driftedProject.setParent(createProject("x-group-x", "x-child-x", "0.9.0", "x-group-x", "x-root-x", "0.9.0"));
+        this.childProject.setParent(this.rootProject);
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, this.childProject, driftedProject), this.mockLog);
+
+        assertEquals("parent and project version mismatch: project=1.0.0; parent=0.9.0",
+                validation.getVerdict(driftedProject).getReason());
+        assertEquals(this.rule.validate(this.mockLog, ProjectCoordinates.fromProject(driftedProject)).getReason(),
+                validation.getVerdict(driftedProject).getReason());
+        assertSame(this.rule.validate(this.mockLog, ProjectCoordinates.fromProject(this.childProject)),
+                validation.getVerdict(this.childProject));
+    }
+
+    /**
+     * Verify the verdict of projects without a parent, and of projects not in the reactor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateNoParentAndUnknownProject() throws Exception {
+        MavenProject orphanProject = createProject("x-group-x", "x-orphan-x", "1.0.0", null, null, null);
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Collections.singletonList(orphanProject), this.mockLog);
+
+        assertSame(Verdict.MISSING_PARENT, validation.getVerdict(orphanProject));
+        assertNull(validation.getVerdict(this.childProject));
+    }
+
+    /**
+     * Verify the verdict of the ancestors names the nearest failed ancestor in the reactor.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetAncestorVerdict() throws Exception {
+        MavenProject driftedProject = createProject("x-group-x", "x-child-x", "1.1.0", "x-group-x", "x-root-x",
+                "1.0.0");
+        MavenProject grandchildProject = createProject("x-group-x", "x-grandchild-x", "1.1.0", "x-group-x",
+                "x-child-x", "1.1.0");
+        MavenProject greatGrandchildProject = createProject("x-group-x", "x-great-grandchild-x", "1.1.0", "x-group-x",
+                "x-grandchild-x", "1.1.0");
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, driftedProject, grandchildProject, greatGrandchildProject),
+                this.mockLog);
+
+        assertSame(Verdict.PASSED, validation.getVerdict(grandchildProject));
+        assertSame(Verdict.PASSED, validation.getVerdict(greatGrandchildProject));
+
+        assertNull(validation.getAncestorVerdict(this.rootProject));
+        assertNull(validation.getAncestorVerdict(driftedProject));
+        assertEquals("ancestor x-group-x:x-child-x failed validation: parent and project version mismatch: " +
+                "project=1.1.0; parent=1.0.0", validation.getAncestorVerdict(grandchildProject).getReason());
+        assertEquals("ancestor x-group-x:x-child-x failed validation: parent and project version mismatch: " +
+                "project=1.1.0; parent=1.0.0", validation.getAncestorVerdict(greatGrandchildProject).getReason());
+    }
+
+    /**
+     * Verify parents referenced with more than one version across the reactor are reported for every project that
+     * references them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSiblingVerdict() throws Exception {
+        MavenProject oldProject = createProject("x-group-x", "x-old-x", "0.9.0", "x-shared-group-x", "x-shared-x",
+                "0.9.0");
+        MavenProject newProject1 = createProject("x-group-x", "x-new1-x", "1.0.0", "x-shared-group-x", "x-shared-x",
+                "1.0.0");
+        MavenProject newProject2 = createProject("x-group-x", "x-new2-x", "1.0.0", "x-shared-group-x", "x-shared-x",
+                "1.0.0");
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, this.childProject, oldProject, newProject1, newProject2),
+                this.mockLog);
+
+        assertSame(Verdict.PASSED, validation.getVerdict(oldProject));
+        assertSame(Verdict.PASSED, validation.getVerdict(newProject1));
+
+        assertNull(validation.getSiblingVerdict(this.rootProject));
+        assertNull(validation.getSiblingVerdict(this.childProject));
+        assertEquals("parent x-shared-group-x:x-shared-x is referenced with more than one version: " +
+                "0.9.0 by [x-group-x:x-old-x]; 1.0.0 by [x-group-x:x-new1-x, x-group-x:x-new2-x]",
+                validation.getSiblingVerdict(oldProject).getReason());
+        assertSame(validation.getSiblingVerdict(oldProject), validation.getSiblingVerdict(newProject2));
+    }
+
+    /**
+     * Verify a project defined by more than one pom fails, naming every pom, instead of one definition replacing the
+     * other.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testValidateDuplicatedProject() throws Exception {
+        MavenProject copyProject = createProject("x-group-x", "x-child-x", "0.9.0", "x-group-x", "x-root-x", "0.9.0");
+        this.childProject.setFile(new File("x-child-x/pom.xml"));
+        copyProject.setFile(new File("src/it/x-child-x/pom.xml"));
+        this.rule.setIgnore(Collections.singletonList("x-root-x"));
+
+        ReactorValidation validation = ReactorValidation.validate(this.rule,
+                Arrays.asList(this.rootProject, this.childProject, copyProject), this.mockLog);
+
+        assertEquals(2, validation.size());
+        assertEquals("project x-group-x:x-child-x is defined by more than one pom: [" +
+                new File("x-child-x/pom.xml") + ", " + new File("src/it/x-child-x/pom.xml") + "]",
+                validation.getVerdict(this.childProject).getReason());
+        assertSame(validation.getVerdict(this.childProject), validation.getVerdict(copyProject));
+        assertEquals("1.0.0", validation.getReactorVersion("x-group-x", "x-child-x"));
+        assertEquals(Collections.singleton("x-group-x:x-child-x"), validation.getFailedVerdicts().keySet());
+
+        assertTrue(validation.isDuplicated("x-group-x", "x-child-x"));
+        assertFalse(validation.isDuplicated("x-group-x", "x-root-x"));
+    }
+}
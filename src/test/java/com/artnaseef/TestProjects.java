@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Projects for the tests, built from their coordinates alone.
+ */
+public final class TestProjects {
+
+    private TestProjects() {
+    }
+
+    /**
+     * Create a project with the given coordinates.
+     *
+     * @param groupId groupId of the project.
+     * @param artifactId artifactId of the project.
+     * @param version version of the project.
+     * @param parentGroupId groupId of the parent (null = no parent).
+     * @param parentArtifactId artifactId of the parent.
+     * @param parentVersion version of the parent specified in the pom.
+     * @return the new project.
+     */
+    public static MavenProject createProject(String groupId, String artifactId, String version, String parentGroupId,
+                                             String parentArtifactId, String parentVersion) {
+        Model model = new Model();
+        model.setGroupId(groupId);
+        model.setArtifactId(artifactId);
+        model.setVersion(version);
+
+        if (parentGroupId != null) {
+            Parent parent = new Parent();
+            parent.setGroupId(parentGroupId);
+            parent.setArtifactId(parentArtifactId);
+            parent.setVersion(parentVersion);
+
+            model.setParent(parent);
+        }
+
+        return new MavenProject(model);
+    }
+}
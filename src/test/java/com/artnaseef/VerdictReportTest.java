@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the VerdictReport.
+ */
+public class VerdictReportTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Verify records are streamed to the working file, and copied into a JSON array when the report is finished.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testJsonReport() throws Exception {
+        File reportFile = new File(this.temporaryFolder.getRoot(), "x-dir-x/report.json");
+        File workingFile = new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX);
+        VerdictReport report = new VerdictReport(reportFile, VerdictReport.Format.JSON);
+
+        report.append("x-execution-x", new ProjectCoordinates("x-group-x", "x-root-x", "1.0.0", null, null), null,
+                null, null, Verdict.MISSING_PARENT, 1000L);
+        report.append("x-execution-x", new ProjectCoordinates("x-group-x", "x-child-x", "1.1.0", "1.0.0", "1.0.0"),
+                "x-group-x", "x-root-x", new File("x-child-x/pom.xml"), Verdict.failed("x-\"quoted\"-x\n\tx-next-x"),
+                2000L);
+
+        List<String> lines = Files.readAllLines(workingFile.toPath(), UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals(2, report.getRecords());
+
+        assertTrue(report.finish());
+        assertFalse(workingFile.exists());
+
+        String expected = "[\n" +
+                "{\"execution\":\"x-execution-x\",\"groupId\":\"x-group-x\",\"artifactId\":\"x-root-x\"," +
+                "\"version\":\"1.0.0\",\"parent\":null," +
+                "\"status\":\"MISSING_PARENT\",\"reason\":\"ignoring this artifact due to no/missing parent\"," +
+                "\"pom\":null,\"time\":1000},\n" +
+                "{\"execution\":\"x-execution-x\",\"groupId\":\"x-group-x\",\"artifactId\":\"x-child-x\"," +
+                "\"version\":\"1.1.0\",\"parent\":{\"groupId\":\"x-group-x\",\"artifactId\":\"x-root-x\"," +
+                "\"version\":\"1.0.0\"," +
+                "\"effectiveVersion\":\"1.0.0\"},\"status\":\"FAILED\"," +
+                "\"reason\":\"x-\\\"quoted\\\"-x\\n\\tx-next-x\",\"pom\":" +
+                "\"x-child-x" + File.separator.replace("\\", "\\\\") + "pom.xml\",\"time\":2000}\n" +
+                "]\n";
+        assertEquals(expected, new String(Files.readAllBytes(reportFile.toPath()), UTF_8));
+    }
+
+    /**
+     * Verify the report is only finished once, and records appended afterwards are refused.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFinishOnce() throws Exception {
+        File reportFile = new File(this.temporaryFolder.getRoot(), "report.json");
+        VerdictReport report = new VerdictReport(reportFile, VerdictReport.Format.JSON);
+
+        assertTrue(report.finish());
+        assertEquals("[\n]\n", new String(Files.readAllBytes(reportFile.toPath()), UTF_8));
+
+        assertFalse(report.append("x-execution-x", new ProjectCoordinates("x-group-x", "x-artifact-x", "1.0.0",
+                "1.0.0", "1.0.0"), "x-group-x", "x-parent-x", null, Verdict.PASSED, 1000L));
+        assertFalse(report.finish());
+
+        assertEquals(0, report.getRecords());
+        assertEquals("[\n]\n", new String(Files.readAllBytes(reportFile.toPath()), UTF_8));
+        assertFalse(new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX).exists());
+    }
+
+    /**
+     * Verify every verdict appended is recorded, in order, and each record is on disk as soon as it is appended.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAppendEveryRecord() throws Exception {
+        File reportFile = new File(this.temporaryFolder.getRoot(), "report.json");
+        File workingFile = new File(reportFile.getPath() + VerdictReport.WORKING_FILE_SUFFIX);
+        VerdictReport report = new VerdictReport(reportFile, VerdictReport.Format.JSON);
+        ProjectCoordinates coordinates = new ProjectCoordinates("x-group-x", "x-artifact-x", "1.0.0", "1.0.0",
+                "1.0.0");
+
+        assertTrue(report.append("x-first-x", coordinates, "x-group-x", "x-parent-x", null, Verdict.PASSED, 1000L));
+        assertTrue(report.append("x-first-x", coordinates, "x-group-x", "x-parent-x", null, Verdict.PASSED, 2000L));
+        assertTrue(report.append("x-second-x", coordinates, "x-group-x", "x-parent-x", null, Verdict.PASSED, 3000L));
+
+        assertEquals(3, report.getRecords());
+
+        List<String> lines = Files.readAllLines(workingFile.toPath(), UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"execution\":\"x-first-x\","));
+        assertTrue(lines.get(0).endsWith("\"time\":1000}"));
+        assertTrue(lines.get(1).endsWith("\"time\":2000}"));
+        assertTrue(lines.get(2).startsWith("{\"execution\":\"x-second-x\","));
+
+        assertTrue(report.finish());
+        assertFalse(workingFile.exists());
+    }
+
+    /**
+     * Verify the SARIF report holds a result per record, with the record as its properties.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSarifReport() throws Exception {
+        File reportFile = new File(this.temporaryFolder.getRoot(), "report.sarif");
+        File pomFile = new File(this.temporaryFolder.getRoot(), "x-child-x/pom.xml");
+        VerdictReport report = new VerdictReport(reportFile, VerdictReport.Format.SARIF);
+
+        report.append("x-execution-x", new ProjectCoordinates("x-group-x", "x-ok-x", "1.0.0", "1.0.0", "1.0.0"),
+                "x-group-x", "x-root-x", null, Verdict.PASSED, 1000L);
+        report.append("x-execution-x", new ProjectCoordinates("x-group-x", "x-child-x", "1.1.0", "1.0.0", "1.0.0"),
+                "x-group-x", "x-root-x", pomFile, Verdict.failed("x-reason-x"), 2000L);
+        assertTrue(report.finish());
+
+        String sarif = new String(Files.readAllBytes(reportFile.toPath()), UTF_8);
+
+        assertTrue(sarif.startsWith("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\"," +
+                "\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":"));
+        assertTrue(sarif.contains("\"results\":[\n{\"ruleId\":\"parent-version\",\"kind\":\"pass\"," +
+                "\"level\":\"none\",\"message\":{\"text\":\"parent version matches\"}," +
+                "\"properties\":{\"execution\":\"x-execution-x\",\"groupId\":\"x-group-x\"," +
+                "\"artifactId\":\"x-ok-x\","));
+        assertTrue(sarif.contains("},\n{\"ruleId\":\"parent-version\",\"kind\":\"fail\",\"level\":\"error\"," +
+                "\"message\":{\"text\":\"x-reason-x\"},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":" +
+                "{\"uri\":\"" + pomFile.toURI() + "\"}}}],\"properties\":{\"execution\":\"x-execution-x\"," +
+                "\"groupId\":\"x-group-x\",\"artifactId\":\"x-child-x\","));
+        assertTrue(sarif.endsWith("\"time\":2000}}\n]}]}\n"));
+    }
+
+    /**
+     * Verify lookup of the format by name.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFormatForConfigName() throws Exception {
+        assertEquals(VerdictReport.Format.JSON, VerdictReport.Format.forConfigName("json"));
+        assertEquals(VerdictReport.Format.SARIF, VerdictReport.Format.forConfigName("SARIF"));
+
+        try {
+            VerdictReport.Format.forConfigName("x-unknown-x");
+            fail("Missing expected exception");
+        } catch (IllegalArgumentException illegalArgExc) {
+            assertEquals("unknown report format 'x-unknown-x'; expected one of: json sarif",
+                    illegalArgExc.getMessage());
+        }
+    }
+}
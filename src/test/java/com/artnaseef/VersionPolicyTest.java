@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016 Arthur Naseef
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+
+package com.artnaseef;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validate operation of the VersionPolicy and ParsedVersion.
+ */
+public class VersionPolicyTest {
+
+    /**
+     * Verify parsing of versions into components and qualifiers, and that each version is only parsed once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParsedVersion() throws Exception {
+        ParsedVersion version = ParsedVersion.of("1.2.3-SNAPSHOT");
+        assertSame(version, ParsedVersion.of("1.2.3-SNAPSHOT"));
+        assertTrue(version.isNumeric());
+        assertEquals(1, version.getComponent(0));
+        assertEquals(2, version.getComponent(1));
+        assertEquals(3, version.getComponent(2));
+        assertEquals(0, version.getComponent(3));
+        assertEquals("snapshot", version.getQualifier());
+
+        assertTrue(ParsedVersion.of("1.0").componentsEqual(ParsedVersion.of("1.0.0")));
+        assertFalse(ParsedVersion.of("1.0").componentsEqual(ParsedVersion.of("1.0.1")));
+
+        assertTrue(ParsedVersion.of("0.0").isNumeric());
+        assertFalse(ParsedVersion.of("unknown-project-version").isNumeric());
+        assertFalse(ParsedVersion.of("1a.0").isNumeric());
+        assertEquals("rc1", ParsedVersion.of("2.0.rc1").getQualifier());
+    }
+
+    /**
+     * Verify the matching of versions under each policy.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMatches() throws Exception {
+        assertTrue(VersionPolicy.EXACT.matches("1.0.0", "1.0.0"));
+        assertFalse(VersionPolicy.EXACT.matches("1.0", "1.0.0"));
+
+        assertTrue(VersionPolicy.EQUIVALENT.matches("1.0", "1.0.0"));
+        assertTrue(VersionPolicy.EQUIVALENT.matches("1.0-SNAPSHOT", "1.0.0-snapshot"));
+        assertFalse(VersionPolicy.EQUIVALENT.matches("1.0-SNAPSHOT", "1.0.0"));
+
+        assertTrue(VersionPolicy.IGNORE_QUALIFIER.matches("1.0.0-SNAPSHOT", "1.0"));
+        assertFalse(VersionPolicy.IGNORE_QUALIFIER.matches("1.0.1-SNAPSHOT", "1.0.0"));
+
+        assertTrue(VersionPolicy.SAME_MAJOR_MINOR.matches("1.2.3", "1.2.0-SNAPSHOT"));
+        assertFalse(VersionPolicy.SAME_MAJOR_MINOR.matches("1.3.0", "1.2.0"));
+
+        assertTrue(VersionPolicy.SAME_MAJOR.matches("1.9", "1.0.0"));
+        assertFalse(VersionPolicy.SAME_MAJOR.matches("2.0", "1.0.0"));
+    }
+
+    /**
+     * Verify versions that do not start with a number only match exactly, under every policy.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMatchesNonNumeric() throws Exception {
+        for (VersionPolicy policy : VersionPolicy.values()) {
+            assertTrue(policy.toString(), policy.matches("unknown-project-version", "unknown-project-version"));
+            assertFalse(policy.toString(), policy.matches("1.0.0", "unknown-project-parent-version"));
+            assertFalse(policy.toString(), policy.matches("unknown-project-version", "1.0.0"));
+        }
+    }
+
+    /**
+     * Verify the lookup of policies by name.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testForConfigName() throws Exception {
+        assertSame(VersionPolicy.SAME_MAJOR_MINOR, VersionPolicy.forConfigName("same-major-minor"));
+        assertSame(VersionPolicy.EXACT, VersionPolicy.forConfigName("EXACT"));
+
+        try {
+            VersionPolicy.forConfigName("x-unknown-x");
+            fail("Missing expected exception");
+        } catch (IllegalArgumentException illegalArgExc) {
+            assertEquals("unknown version policy 'x-unknown-x'; expected one of: exact equivalent ignore-qualifier " +
+                    "same-major-minor same-major", illegalArgExc.getMessage());
+        }
+    }
+
+    /**
+     * Verify matching previously-seen versions allocates no memory, using the allocation counter of the current
+     * thread.  Skipped on JVMs without thread allocation accounting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMatchesAllocationFree() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        int iterations = 100000;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            assertTrue(VersionPolicy.SAME_MAJOR_MINOR.matches("1.2.3-SNAPSHOT", "1.2.0"));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            VersionPolicy.SAME_MAJOR_MINOR.matches("1.2.3-SNAPSHOT", "1.2.0");
+            VersionPolicy.EQUIVALENT.matches("1.2.3-SNAPSHOT", "1.2.0");
+        }
+        long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes over " + iterations + " comparisons", allocated < iterations);
+    }
+}